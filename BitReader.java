@@ -0,0 +1,82 @@
+/**
+ * Bitu lasītājs ar 64 bitu buferi
+ * Lasa bitus no augstākā uz zemāko (MSB first), tāpat kā tos raksta HuffmanCoding
+ */
+public class BitReader {
+
+    private final byte[] data;
+    private final int end;
+    private int pos;
+    private long buffer;   // Nākamie biti, izlīdzināti pie augstākā bita
+    private int bitCount;  // Derīgo bitu skaits buferī
+    private long consumed; // Kopā patērētie biti
+
+    /**
+     * @param data Avota baiti
+     * @param offset Pirmā baita indekss
+     * @param length Baitu skaits
+     */
+    public BitReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Atgriež nākamos n bitus, tos nepatērējot (aiz datu beigām - nulles)
+     * @param n Bitu skaits (1-32)
+     */
+    public int peekBits(int n) {
+        if (bitCount < n) {
+            refill();
+        }
+        return (int) (buffer >>> (64 - n));
+    }
+
+    /**
+     * Patērē n bitus (n nedrīkst pārsniegt iepriekš apskatīto)
+     */
+    public void skipBits(int n) {
+        buffer <<= n;
+        bitCount -= n;
+        consumed += n;
+    }
+
+    /**
+     * Nolasa n bitus (0-32)
+     */
+    public int readBits(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        int value = peekBits(n);
+        skipBits(n);
+        return value;
+    }
+
+    /**
+     * @return Patērēto bitu skaits kopš sākuma
+     */
+    public long bitPosition() {
+        return consumed;
+    }
+
+    private void refill() {
+        // Pa 8 baitiem, kamēr tie ir pieejami, citādi pa vienam
+        if (bitCount == 0 && pos + 8 <= end) {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[pos + i] & 0xFF);
+            }
+            pos += 8;
+            buffer = value;
+            bitCount = 64;
+            return;
+        }
+        while (bitCount <= 56) {
+            long b = pos < end ? data[pos++] & 0xFF : 0;
+            buffer |= b << (56 - bitCount);
+            bitCount += 8;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/**
+ * Bitu rakstītājs ar 64 bitu akumulatoru
+ * Raksta bitus no augstākā uz zemāko (MSB first), pāri ar BitReader
+ */
+public class BitWriter {
+
+    private byte[] buffer;
+    private int limit;        // Rakstīt drīkst tikai līdz šai pozīcijai, tālāk - jauns buferis
+    private int pos;
+    private long accumulator; // Vēl neizrakstītie biti (zemākie bitCount biti)
+    private int bitCount;
+
+    /**
+     * Raksta iepriekš sagatavotā buferī, kas tiek paplašināts tikai tad, ja nepietiek vietas
+     * @param buffer Mērķa buferis
+     * @param offset Pirmā rakstāmā baita indekss
+     */
+    public BitWriter(byte[] buffer, int offset) {
+        this(buffer, offset, buffer.length);
+    }
+
+    /**
+     * Raksta bufera apgabalā [offset, limit); baiti aiz limit netiek aiztikti
+     * @param buffer Mērķa buferis
+     * @param offset Pirmā rakstāmā baita indekss
+     * @param limit Pozīcija aiz pēdējā baita, ko drīkst rakstīt
+     */
+    public BitWriter(byte[] buffer, int offset, int limit) {
+        this.buffer = buffer;
+        this.pos = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @param initialCapacity Sākotnējais bufera izmērs baitos
+     */
+    public BitWriter(int initialCapacity) {
+        this(new byte[Math.max(16, initialCapacity)], 0);
+    }
+
+    /**
+     * Ieraksta value zemākos n bitus
+     * @param value Vērtība
+     * @param n Bitu skaits (0-32)
+     */
+    public void writeBits(int value, int n) {
+        accumulator = (accumulator << n) | (value & ((1L << n) - 1));
+        bitCount += n;
+        if (bitCount >= 32) {
+            flushBytes();
+        }
+    }
+
+    /**
+     * Papildina pēdējo baitu ar nullēm līdz baita robežai
+     */
+    public void alignToByte() {
+        int padding = (8 - (bitCount & 7)) & 7;
+        writeBits(0, padding);
+        flushBytes();
+    }
+
+    /**
+     * Ieraksta baitus (rakstītājam jābūt uz baita robežas)
+     */
+    public void writeBytes(byte[] data, int offset, int length) {
+        alignToByte();
+        ensureCapacity(length);
+        System.arraycopy(data, offset, buffer, pos, length);
+        pos += length;
+    }
+
+    /**
+     * Atmet visu, kas ierakstīts pēc baita pozīcijas offset (rakstītājam jābūt uz baita robežas)
+     * @param offset Baita pozīcija, no kuras turpināt rakstīšanu
+     */
+    public void rewind(int offset) {
+        accumulator = 0;
+        bitCount = 0;
+        pos = offset;
+    }
+
+    /**
+     * @return Kopā ierakstīto bitu skaits kopš bufera sākuma
+     */
+    public long bitPosition() {
+        return (long) pos * 8 + bitCount;
+    }
+
+    /**
+     * Izraksta atlikušos bitus (papildinot ar nullēm) un atgriež bufera garumu
+     * @return Ierakstīto baitu pozīcija buferī
+     */
+    public int finish() {
+        alignToByte();
+        return pos;
+    }
+
+    /**
+     * @return Pamata buferis (derīgi baiti līdz finish() vērtībai)
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @return Ierakstītie baiti kā jauns masīvs
+     */
+    public byte[] toByteArray() {
+        int length = finish();
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    private void flushBytes() {
+        ensureCapacity(bitCount >>> 3);
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            buffer[pos++] = (byte) (accumulator >>> bitCount);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pos + extra > limit) {
+            buffer = Arrays.copyOf(buffer, Math.max(pos + extra, limit * 2));
+            limit = buffer.length;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.Arrays;
+
+/**
+ * Burrows-Wheeler transformācija (BWT) baitu blokiem
+ * Sakārto visus bloka sufiksus un izvada baitu pirms katra - vienādi konteksti sagrupē vienādus baitus,
+ * tāpēc pēc MTF paliek galvenokārt mazi rangi un garas nuļļu virknes
+ *
+ * Sufiksu masīvs tiek veidots ar SA-IS (lineārs laiks); bloka beigās ir iedomāts simbols $,
+ * kas ir mazāks par visiem baitiem - izvadē tas netiek rakstīts, tā rindu glabā sākuma indekss
+ */
+public class BurrowsWheelerTransform {
+
+    private static final int ALPHABET_SIZE = 256;
+    private static final int NAIVE_THRESHOLD = 10;  // Īsākiem tekstiem sufiksi tiek salīdzināti tieši
+    private static final int MAX_BLOCK_SIZE = (1 << 24) - 2; // Inversajā rindas indekss glabājas 24 bitos
+
+    /**
+     * Piemēro BWT data[start, end)
+     * @param data Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param output Izvades masīvs (end - start baiti); drīkst būt tas pats, kas data
+     * @param outputPos Pirmā izvades baita indekss
+     * @return Sākuma indekss (rinda, kurā atrodas $), vajadzīgs inversajai transformācijai
+     */
+    public static int transform(byte[] data, int start, int end, byte[] output, int outputPos) {
+        int length = end - start;
+        if (length > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("BWT bloks pārāk liels: " + length);
+        }
+        if (length == 0) {
+            return 0;
+        }
+        int[] text = new int[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = data[start + i] & 0xFF;
+        }
+        int[] suffixes = suffixArray(text, length, ALPHABET_SIZE - 1);
+
+        // Rinda 0 ir sufikss "$", pirms tā - pēdējais baits; rindā ar sufiksu 0 būtu $
+        output[outputPos++] = (byte) text[length - 1];
+        int primaryIndex = 0;
+        for (int row = 0; row < length; row++) {
+            int suffix = suffixes[row];
+            if (suffix == 0) {
+                primaryIndex = row + 1;
+            } else {
+                output[outputPos++] = (byte) text[suffix - 1];
+            }
+        }
+        return primaryIndex;
+    }
+
+    /**
+     * Atgriež BWT: katrai rindai saglabā nākamā sufiksa rindu un tās pirmo baitu vienā int,
+     * tāpēc oriģinālu atjauno viena secīga pāreja ar vienu atmiņas piekļuvi uz baitu
+     * @param transformed BWT izvade
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param primaryIndex Sākuma indekss no transform
+     * @param output Izvades masīvs; drīkst būt tas pats, kas transformed
+     * @param outputPos Pirmā izvades baita indekss
+     */
+    public static void inverseTransform(byte[] transformed, int start, int end, int primaryIndex,
+                                        byte[] output, int outputPos) {
+        int length = end - start;
+        if (length > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("BWT bloks pārāk liels: " + length);
+        }
+        if (length == 0) {
+            return;
+        }
+        if (primaryIndex < 1 || primaryIndex > length) {
+            throw new IllegalArgumentException("Nederīgs BWT sākuma indekss: " + primaryIndex);
+        }
+
+        // Katra baita pirmā rinda sakārtotajā kolonnā; rinda 0 pieder $
+        int[] next = new int[ALPHABET_SIZE];
+        for (int i = start; i < end; i++) {
+            next[transformed[i] & 0xFF]++;
+        }
+        int sum = 1;
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            int count = next[c];
+            next[c] = sum;
+            sum += count;
+        }
+
+        int[] links = new int[length + 1];
+        links[0] = primaryIndex << 8;
+        int row = 0;
+        for (int i = start; i < end; i++, row++) {
+            if (row == primaryIndex) {
+                row++;
+            }
+            int c = transformed[i] & 0xFF;
+            links[next[c]++] = (row << 8) | c;
+        }
+
+        row = primaryIndex;
+        for (int i = 0; i < length; i++) {
+            int link = links[row];
+            output[outputPos + i] = (byte) link;
+            row = link >>> 8;
+        }
+    }
+
+    /**
+     * Sufiksu masīvs ar SA-IS: LMS sufiksi tiek sakārtoti rekursīvi, pārējie - inducēti no tiem
+     * (īsāks sufikss, kas ir cita prefikss, ir mazāks)
+     * @param text Simboli 0..upper
+     * @param length Teksta garums
+     * @param upper Lielākais simbols
+     * @return Sufiksu sākuma pozīcijas augošā secībā
+     */
+    static int[] suffixArray(int[] text, int length, int upper) {
+        if (length == 0) {
+            return new int[0];
+        }
+        if (length == 1) {
+            return new int[] {0};
+        }
+        if (length == 2) {
+            return text[0] < text[1] ? new int[] {0, 1} : new int[] {1, 0};
+        }
+        if (length < NAIVE_THRESHOLD) {
+            return naiveSuffixArray(text, length);
+        }
+
+        // S tips: sufikss mazāks par nākamo; L tips: lielāks
+        boolean[] sType = new boolean[length];
+        for (int i = length - 2; i >= 0; i--) {
+            sType[i] = text[i] == text[i + 1] ? sType[i + 1] : text[i] < text[i + 1];
+        }
+        // Spaiņu robežas: sumS[c] - pirmais c S spainis, sumL[c] - pirmais c L spainis
+        int[] sumL = new int[upper + 2];
+        int[] sumS = new int[upper + 2];
+        for (int i = 0; i < length; i++) {
+            if (!sType[i]) {
+                sumS[text[i]]++;
+            } else {
+                sumL[text[i] + 1]++;
+            }
+        }
+        for (int c = 0; c <= upper; c++) {
+            sumS[c] += sumL[c];
+            sumL[c + 1] += sumS[c];
+        }
+
+        int[] lmsIndex = new int[length];
+        Arrays.fill(lmsIndex, -1);
+        int lmsCount = 0;
+        for (int i = 1; i < length; i++) {
+            if (!sType[i - 1] && sType[i]) {
+                lmsIndex[i] = lmsCount++;
+            }
+        }
+        int[] lms = new int[lmsCount];
+        for (int i = 1, k = 0; i < length; i++) {
+            if (!sType[i - 1] && sType[i]) {
+                lms[k++] = i;
+            }
+        }
+
+        int[] suffixes = new int[length];
+        int[] bucket = new int[upper + 2];
+        induce(text, length, sType, sumL, sumS, lms, lmsCount, suffixes, bucket);
+
+        if (lmsCount > 0) {
+            // LMS apakšvirkņu vārdi to sakārtotajā secībā, vienādām apakšvirknēm - vienāds vārds
+            int[] sortedLms = new int[lmsCount];
+            int k = 0;
+            for (int suffix : suffixes) {
+                if (lmsIndex[suffix] != -1) {
+                    sortedLms[k++] = suffix;
+                }
+            }
+            int[] reduced = new int[lmsCount];
+            int reducedUpper = 0;
+            reduced[lmsIndex[sortedLms[0]]] = 0;
+            for (int i = 1; i < lmsCount; i++) {
+                int left = sortedLms[i - 1];
+                int right = sortedLms[i];
+                int leftEnd = lmsIndex[left] + 1 < lmsCount ? lms[lmsIndex[left] + 1] : length;
+                int rightEnd = lmsIndex[right] + 1 < lmsCount ? lms[lmsIndex[right] + 1] : length;
+                boolean same = leftEnd - left == rightEnd - right;
+                if (same) {
+                    while (left < leftEnd && text[left] == text[right]) {
+                        left++;
+                        right++;
+                    }
+                    same = left < length && right < length && text[left] == text[right];
+                }
+                if (!same) {
+                    reducedUpper++;
+                }
+                reduced[lmsIndex[sortedLms[i]]] = reducedUpper;
+            }
+
+            int[] reducedSuffixes = suffixArray(reduced, lmsCount, reducedUpper);
+            for (int i = 0; i < lmsCount; i++) {
+                sortedLms[i] = lms[reducedSuffixes[i]];
+            }
+            induce(text, length, sType, sumL, sumS, sortedLms, lmsCount, suffixes, bucket);
+        }
+        return suffixes;
+    }
+
+    /**
+     * Ievieto LMS sufiksus S spaiņu sākumos un no tiem inducē L un S sufiksu secību
+     */
+    private static void induce(int[] text, int length, boolean[] sType, int[] sumL, int[] sumS,
+                               int[] lms, int lmsCount, int[] suffixes, int[] bucket) {
+        Arrays.fill(suffixes, 0, length, -1);
+        System.arraycopy(sumS, 0, bucket, 0, bucket.length);
+        for (int i = 0; i < lmsCount; i++) {
+            int suffix = lms[i];
+            suffixes[bucket[text[suffix]]++] = suffix;
+        }
+
+        System.arraycopy(sumL, 0, bucket, 0, bucket.length);
+        suffixes[bucket[text[length - 1]]++] = length - 1;
+        for (int i = 0; i < length; i++) {
+            int suffix = suffixes[i];
+            if (suffix >= 1 && !sType[suffix - 1]) {
+                suffixes[bucket[text[suffix - 1]]++] = suffix - 1;
+            }
+        }
+
+        System.arraycopy(sumL, 0, bucket, 0, bucket.length);
+        for (int i = length - 1; i >= 0; i--) {
+            int suffix = suffixes[i];
+            if (suffix >= 1 && sType[suffix - 1]) {
+                suffixes[--bucket[text[suffix - 1] + 1]] = suffix - 1;
+            }
+        }
+    }
+
+    private static int[] naiveSuffixArray(int[] text, int length) {
+        Integer[] order = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            while (a < length && b < length) {
+                if (text[a] != text[b]) {
+                    return Integer.compare(text[a], text[b]);
+                }
+                a++;
+                b++;
+            }
+            return a == length ? (b == length ? 0 : -1) : 1;
+        });
+        int[] suffixes = new int[length];
+        for (int i = 0; i < length; i++) {
+            suffixes[i] = order[i];
+        }
+        return suffixes;
+    }
+}
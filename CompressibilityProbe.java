@@ -0,0 +1,116 @@
+/**
+ * Ātrs kompresējamības novērtējums pirms pilnas kompresijas
+ * No ievades ņem dažus izkliedētus paraugus: baitu entropija dod Huffman robežu, hash pārbaude -
+ * cik daudz paraugu pozīciju pārklātu LZ77 atbilstības. Jau kompresētiem datiem (attēli, gzip)
+ * entropija ir tuvu 8 bitiem un atkārtojumu nav, tāpēc tos var glabāt bez LZ77 darba
+ */
+public class CompressibilityProbe {
+
+    private static final int SAMPLE_COUNT = 8;
+    private static final int SAMPLE_LENGTH = 1024;    // Kopā līdz 8 KB neatkarīgi no ievades izmēra
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_MATCH = 258;
+    private static final int HISTORY_STEP = 4;        // Vēsturē katra ceturtā pozīcija - atbilstību atrod nobīdītu
+    private static final int HASH_BITS = 13;
+    static final int HASH_SIZE = 1 << HASH_BITS;
+
+    /**
+     * Novērtē kompresijas attiecību: paraugu entropija (ar Miller-Madow korekciju nelieliem paraugiem),
+     * samazināta par atbilstību pārklāto daļu. Atbilstību cena netiek skaitīta, tāpēc novērtējums ir
+     * optimistisks - tas ir drošs lēmumam glabāt nekompresētu
+     * @param data Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @return Sagaidāmais kompresētā izmēra procents (0-100)
+     */
+    public static int estimateRatio(byte[] data, int start, int end) {
+        return estimateRatio(data, start, start, end, new int[HASH_SIZE]);
+    }
+
+    /**
+     * Kā estimateRatio, hash tabulai izmantojot head (HASH_SIZE elementi, saturs tiek pārrakstīts);
+     * atbilstības tiek meklētas arī vēsturē data[historyStart, start), kā to darītu LZ77
+     */
+    static int estimateRatio(byte[] data, int historyStart, int start, int end, int[] head) {
+        int length = end - start;
+        if (length <= 0) {
+            return 0;
+        }
+        int sampleCount = Math.min(SAMPLE_COUNT, Math.max(1, length / SAMPLE_LENGTH));
+        int sampleLength = Math.min(SAMPLE_LENGTH, length);
+        long stride = sampleCount > 1 ? (long) (length - sampleLength) / (sampleCount - 1) : 0;
+
+        int[] histogram = new int[256];
+        java.util.Arrays.fill(head, -1);
+        int total = 0;
+        int covered = 0;
+        for (int s = 0; s < sampleCount; s++) {
+            int sampleStart = start + (int) (stride * s);
+            int sampleEnd = sampleStart + sampleLength;
+            for (int pos = sampleStart; pos < sampleEnd; pos++) {
+                histogram[data[pos] & 0xFF]++;
+            }
+            total += sampleLength;
+
+            // Alkatīgas atbilstības LZ77 loga attālumā; iepriekšējais logs tabulā nonāk retināts
+            int windowStart = Math.max(historyStart, sampleStart - LZ77Compression.WINDOW_SIZE);
+            for (int pos = windowStart; pos < sampleStart && pos + MIN_MATCH <= end; pos += HISTORY_STEP) {
+                head[hash(data, pos)] = pos;
+            }
+            for (int pos = sampleStart; pos + MIN_MATCH <= sampleEnd; ) {
+                int hash = hash(data, pos);
+                int candidate = head[hash];
+                head[hash] = pos;
+                int matchLength = 0;
+                if (candidate >= windowStart && pos - candidate <= LZ77Compression.WINDOW_SIZE) {
+                    int limit = Math.min(MAX_MATCH, sampleEnd - pos);
+                    while (matchLength < limit && data[candidate + matchLength] == data[pos + matchLength]) {
+                        matchLength++;
+                    }
+                }
+                if (matchLength >= MIN_MATCH) {
+                    covered += matchLength;
+                    pos += matchLength;
+                } else {
+                    pos++;
+                }
+            }
+        }
+
+        double bitsPerByte = entropyBits(histogram, 256) / total;
+        int symbols = 0;
+        for (int count : histogram) {
+            if (count > 0) {
+                symbols++;
+            }
+        }
+        bitsPerByte = Math.min(8, bitsPerByte + (symbols - 1) / (2.0 * total * Math.log(2)));
+        return (int) Math.round(bitsPerByte / 8 * (total - covered) / total * 100);
+    }
+
+    /**
+     * Order-0 entropija: bitu skaits, kas vajadzīgs visiem simboliem ar ideāliem kodiem
+     * @param histogram Simbolu biežumi
+     * @param size Simbolu skaits histogrammā
+     */
+    static double entropyBits(int[] histogram, int size) {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += histogram[i];
+        }
+        double bits = 0;
+        for (int i = 0; i < size; i++) {
+            int count = histogram[i];
+            if (count > 0) {
+                bits += count * (Math.log((double) total / count) / Math.log(2));
+            }
+        }
+        return bits;
+    }
+
+    private static int hash(byte[] data, int pos) {
+        int value = (data[pos] & 0xFF) | (data[pos + 1] & 0xFF) << 8
+            | (data[pos + 2] & 0xFF) << 16 | (data[pos + 3] & 0xFF) << 24;
+        return (value * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+}
@@ -0,0 +1,493 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kompresijas posmu ķēde, kas sevi apraksta bloka galvenē
+ * Formāts: [posmu skaits][posmu ID...][32 bitu starprezultātu garumi][pēdējā posma dati]
+ * Posms i kodē posma i - 1 izvadi; dekodētājs posmus izsauc pretējā secībā
+ *
+ * Piemēram, CompressionPipeline.of(CompressionPipeline.BWT, CompressionPipeline.MTF,
+ * CompressionPipeline.RLE, CompressionPipeline.HUFFMAN)
+ */
+public class CompressionPipeline {
+
+    public static final int MAX_STAGES = 8;
+
+    private static final Map<Integer, CompressionStage> STAGES = new ConcurrentHashMap<>();
+
+    /** LZ77 + divi Huffman alfabēti noklusējuma līmenī (skatīt lz77(int)) */
+    public static final CompressionStage LZ77 = lz77(LZ77Compression.DEFAULT_LEVEL);
+    /** Move-to-Front: katrs baits kļūst par tā rangu */
+    public static final CompressionStage MTF = new MoveToFrontStage();
+    /** Run-length: [vērtība][varint garums] pāri */
+    public static final CompressionStage RLE = new RunLengthStage();
+    /** Burrows-Wheeler pa 4 MB gabaliem, katram 32 bitu sākuma indekss */
+    public static final CompressionStage BWT = new BurrowsWheelerStage();
+    /** Baitu Huffman kodi ar vienu kanonisko alfabētu */
+    public static final CompressionStage HUFFMAN = new HuffmanStage();
+    /** MTF + nuļļu virkņu RLE + Huffman (MTFHuffmanCoder) */
+    public static final CompressionStage MTF_HUFFMAN = new MTFHuffmanStage();
+
+    static {
+        for (CompressionStage stage : new CompressionStage[] {LZ77, MTF, RLE, BWT, HUFFMAN, MTF_HUFFMAN}) {
+            register(stage);
+        }
+    }
+
+    private final CompressionStage[] stages;
+
+    private CompressionPipeline(CompressionStage[] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * @param stages Posmi kodēšanas secībā (1-MAX_STAGES), katra ID jābūt reģistrētam
+     * @return Pipeline
+     */
+    public static CompressionPipeline of(CompressionStage... stages) {
+        if (stages.length < 1 || stages.length > MAX_STAGES) {
+            throw new IllegalArgumentException("Nederīgs posmu skaits: " + stages.length);
+        }
+        for (CompressionStage stage : stages) {
+            if (STAGES.get(stage.id()) == null) {
+                throw new IllegalArgumentException("Posms nav reģistrēts: " + stage.id());
+            }
+        }
+        return new CompressionPipeline(stages.clone());
+    }
+
+    /**
+     * Reģistrē posmu dekodēšanai; ID nedrīkst atkārtoties
+     * @param stage Posms ar ID 0-255
+     */
+    public static void register(CompressionStage stage) {
+        int id = stage.id();
+        if (id < 0 || id > 255) {
+            throw new IllegalArgumentException("Nederīgs posma ID: " + id);
+        }
+        if (STAGES.putIfAbsent(id, stage) != null) {
+            throw new IllegalArgumentException("Posma ID jau reģistrēts: " + id);
+        }
+    }
+
+    /**
+     * LZ77 + Huffman posms; līmenis ietekmē tikai kodēšanu, visiem līmeņiem viens ID
+     * @param level Kompresijas līmenis (1-9)
+     */
+    public static CompressionStage lz77(int level) {
+        return new LZ77Stage(LZ77Compression.forLevel(level));
+    }
+
+    /**
+     * Kodē data[start, end) ar visiem posmiem un raksta galveni un rezultātu out
+     * @param data Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param out Bitu rakstītājs; tiek izlīdzināts līdz baita robežai
+     */
+    public void encode(byte[] data, int start, int end, BitWriter out) {
+        encode(data, start, end, out, new Workspace());
+    }
+
+    /**
+     * Kodē kā iepriekš, starprezultātiem un posmu masīviem izmantojot workspace
+     * @param workspace Atkārtoti izmantojamie masīvi (skatīt Workspace)
+     */
+    public void encode(byte[] data, int start, int end, BitWriter out, Workspace workspace) {
+        int[] lengths = workspace.sizes;
+        byte[] current = data;
+        int currentStart = start;
+        int currentEnd = end;
+        for (int i = 0; i < stages.length - 1; i++) {
+            // Posms i raksta vienā buferī, kamēr lasa iepriekšējā posma izvadi otrā
+            BitWriter stageOut = new BitWriter(workspace.stageBuffers[i & 1], 0);
+            stages[i].encode(current, currentStart, currentEnd, stageOut, workspace);
+            stageOut.alignToByte();
+            current = stageOut.buffer();
+            workspace.stageBuffers[i & 1] = current;
+            currentStart = 0;
+            currentEnd = stageOut.finish();
+            lengths[i] = currentEnd;
+        }
+
+        out.writeBits(stages.length, 8);
+        for (CompressionStage stage : stages) {
+            out.writeBits(stage.id(), 8);
+        }
+        for (int i = 0; i < stages.length - 1; i++) {
+            out.writeBits(lengths[i], 32);
+        }
+        stages[stages.length - 1].encode(current, currentStart, currentEnd, out, workspace);
+        out.alignToByte();
+    }
+
+    /**
+     * Dekodē encode izvadi: posmu ķēdi nolasa no galvenes
+     * @param compressed Kodētie baiti
+     * @param offset Galvenes sākums
+     * @param length Baitu skaits līdz bloka beigām
+     * @param output Izvades buferis
+     * @param outputPos Pirmā dekodētā baita pozīcija
+     * @param originalLength Oriģinālais garums
+     * @throws IllegalArgumentException Ja galvene vai dati ir bojāti, vai posms nav reģistrēts
+     */
+    public static void decode(byte[] compressed, int offset, int length, byte[] output, int outputPos,
+                              int originalLength) {
+        decode(compressed, offset, length, output, outputPos, originalLength, new Workspace());
+    }
+
+    /**
+     * Dekodē kā iepriekš, starprezultātiem un dekodēšanas tabulām izmantojot workspace
+     * @param workspace Atkārtoti izmantojamie masīvi (skatīt Workspace)
+     */
+    public static void decode(byte[] compressed, int offset, int length, byte[] output, int outputPos,
+                              int originalLength, Workspace workspace) {
+        int end = offset + length;
+        if (length < 1) {
+            throw new IllegalArgumentException("Trūkst pipeline galvenes");
+        }
+        int count = compressed[offset] & 0xFF;
+        int payload = offset + 1 + count + 4 * (count - 1);
+        if (count < 1 || count > MAX_STAGES || payload > end) {
+            throw new IllegalArgumentException("Nederīga pipeline galvene: " + count + " posmi");
+        }
+        CompressionStage[] chain = workspace.chain;
+        for (int i = 0; i < count; i++) {
+            int id = compressed[offset + 1 + i] & 0xFF;
+            chain[i] = STAGES.get(id);
+            if (chain[i] == null) {
+                throw new IllegalArgumentException("Nezināms pipeline posms: " + id);
+            }
+        }
+        // sizes[i] - posma i ievades garums
+        int[] sizes = workspace.sizes;
+        sizes[0] = originalLength;
+        BitReader header = new BitReader(compressed, offset + 1 + count, 4 * (count - 1));
+        for (int i = 1; i < count; i++) {
+            sizes[i] = header.readBits(32);
+            if (sizes[i] < 0 || sizes[i] > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Nederīgs starprezultāta garums: " + sizes[i]);
+            }
+        }
+
+        byte[] input = compressed;
+        int inputStart = payload;
+        int inputEnd = end;
+        for (int i = count - 1; i >= 0; i--) {
+            byte[] target = i == 0 ? output : workspace.stageBuffer(i & 1, sizes[i]);
+            int targetPos = i == 0 ? outputPos : 0;
+            chain[i].decode(input, inputStart, inputEnd, target, targetPos, sizes[i], workspace);
+            input = target;
+            inputStart = targetPos;
+            inputEnd = targetPos + sizes[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (CompressionStage stage : stages) {
+            if (result.length() > 0) {
+                result.append('+');
+            }
+            result.append(stage);
+        }
+        return result.toString();
+    }
+
+    private static void checkLength(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Posma izvades garums nesakrīt: " + actual + " != " + expected);
+        }
+    }
+
+    /**
+     * Atkārtoti izmantojami masīvi posmu ķēdei: starprezultātu buferi, LZ77 meklētājs un tokeni,
+     * MTF un Huffman masīvi un dekodēšanas tabulas
+     * Masīvi tiek paplašināti pēc vajadzības; viens Workspace vienlaikus jālieto vienā pavedienā
+     */
+    public static final class Workspace {
+        private static final int ALPHABET_SIZE = 256;
+
+        private final LZ77Compression.Workspace lz77;
+        private final LZ77TokenBuffer tokens;
+        private final MTFHuffmanCoder.Workspace mtf;
+        private final HuffmanCoding.DecodingTables tables;
+        private final HuffmanCoding.Workspace huffman = new HuffmanCoding.Workspace();
+        private final int[] histogram = new int[ALPHABET_SIZE];
+        private final byte[] lengths = new byte[ALPHABET_SIZE];
+        private final int[] codes = new int[ALPHABET_SIZE];
+        private final CompressionStage[] chain = new CompressionStage[MAX_STAGES];
+        private final int[] sizes = new int[MAX_STAGES];
+        private final byte[][] stageBuffers = {new byte[0], new byte[0]}; // Blakus posmu izvades pārmaiņus
+        private byte[] scratch = new byte[0];  // Posma iekšējais buferis (MTF rangi, RLE, BWT gabals)
+
+        public Workspace() {
+            this(new LZ77Compression.Workspace(), new LZ77TokenBuffer(), new MTFHuffmanCoder.Workspace(),
+                 new HuffmanCoding.DecodingTables());
+        }
+
+        /**
+         * Workspace, kas izmanto citur (OWOCompressor.Context) jau esošos masīvus
+         */
+        Workspace(LZ77Compression.Workspace lz77, LZ77TokenBuffer tokens, MTFHuffmanCoder.Workspace mtf,
+                  HuffmanCoding.DecodingTables tables) {
+            this.lz77 = lz77;
+            this.tokens = tokens;
+            this.mtf = mtf;
+            this.tables = tables;
+        }
+
+        private byte[] stageBuffer(int index, int length) {
+            if (stageBuffers[index].length < length) {
+                stageBuffers[index] = new byte[length];
+            }
+            return stageBuffers[index];
+        }
+
+        private byte[] scratch(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            return scratch;
+        }
+    }
+
+    private static final class LZ77Stage implements CompressionStage {
+        private final LZ77Compression.LevelConfig config;
+
+        LZ77Stage(LZ77Compression.LevelConfig config) {
+            this.config = config;
+        }
+
+        @Override
+        public int id() {
+            return 1;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            LZ77Compression.compress(input, start, start, end, config, workspace.tokens, workspace.lz77);
+            LZ77HuffmanCoder.encode(workspace.tokens, out, workspace.lz77.tables());
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            decode(input, start, end, output, outputPos, outputLength, new Workspace());
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength,
+                           Workspace workspace) {
+            LZ77HuffmanCoder.decode(new BitReader(input, start, end - start), output,
+                                    outputPos, outputPos, outputPos + outputLength, workspace.tables);
+        }
+
+        @Override
+        public String toString() {
+            return "LZ77";
+        }
+    }
+
+    private static final class MoveToFrontStage implements CompressionStage {
+        @Override
+        public int id() {
+            return 2;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            byte[] ranks = workspace.scratch(end - start);
+            MoveToFront.transform(input, start, end, ranks, 0);
+            out.writeBytes(ranks, 0, end - start);
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            checkLength(end - start, outputLength);
+            MoveToFront.inverseTransform(input, start, end, output, outputPos);
+        }
+
+        @Override
+        public String toString() {
+            return "MTF";
+        }
+    }
+
+    private static final class RunLengthStage implements CompressionStage {
+        @Override
+        public int id() {
+            return 3;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            int length = RunLengthEncoding.encodedLength(input, start, end);
+            byte[] encoded = workspace.scratch(length);
+            RunLengthEncoding.encode(input, start, end, encoded, 0);
+            out.writeBytes(encoded, 0, length);
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            checkLength(RunLengthEncoding.decodedLength(input, start, end), outputLength);
+            RunLengthEncoding.decode(input, start, end, output, outputPos);
+        }
+
+        @Override
+        public String toString() {
+            return "RLE";
+        }
+    }
+
+    private static final class BurrowsWheelerStage implements CompressionStage {
+        @Override
+        public int id() {
+            return 4;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            byte[] transformed = workspace.scratch(Math.min(end - start, MTFHuffmanCoder.BWT_BLOCK_SIZE));
+            for (int pos = start; pos < end; ) {
+                int chunkLength = Math.min(end - pos, MTFHuffmanCoder.BWT_BLOCK_SIZE);
+                int primaryIndex = BurrowsWheelerTransform.transform(input, pos, pos + chunkLength, transformed, 0);
+                out.writeBits(primaryIndex, 32);
+                out.writeBytes(transformed, 0, chunkLength);
+                pos += chunkLength;
+            }
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            int chunks = (int) (((long) outputLength + MTFHuffmanCoder.BWT_BLOCK_SIZE - 1) / MTFHuffmanCoder.BWT_BLOCK_SIZE);
+            checkLength(end - start, outputLength + 4 * chunks);
+            int pos = start;
+            for (int done = 0; done < outputLength; ) {
+                int chunkLength = Math.min(outputLength - done, MTFHuffmanCoder.BWT_BLOCK_SIZE);
+                int primaryIndex = new BitReader(input, pos, 4).readBits(32);
+                pos += 4;
+                BurrowsWheelerTransform.inverseTransform(input, pos, pos + chunkLength, primaryIndex,
+                                                         output, outputPos + done);
+                pos += chunkLength;
+                done += chunkLength;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "BWT";
+        }
+    }
+
+    private static final class HuffmanStage implements CompressionStage {
+        private static final int ALPHABET_SIZE = Workspace.ALPHABET_SIZE;
+
+        @Override
+        public int id() {
+            return 5;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            int[] histogram = workspace.histogram;
+            Arrays.fill(histogram, 0);
+            for (int i = start; i < end; i++) {
+                histogram[input[i] & 0xFF]++;
+            }
+            byte[] lengths = workspace.lengths;
+            int[] codes = workspace.codes;
+            HuffmanCoding.codeLengths(histogram, ALPHABET_SIZE, HuffmanCoding.MAX_CODE_LENGTH, lengths, workspace.huffman);
+            HuffmanCoding.canonicalCodes(lengths, ALPHABET_SIZE, codes, workspace.huffman);
+            HuffmanCoding.writeCodeLengths(out, lengths, ALPHABET_SIZE, workspace.huffman);
+            for (int i = start; i < end; i++) {
+                int symbol = input[i] & 0xFF;
+                out.writeBits(codes[symbol], lengths[symbol]);
+            }
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            decode(input, start, end, output, outputPos, outputLength, new Workspace());
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength,
+                           Workspace workspace) {
+            BitReader in = new BitReader(input, start, end - start);
+            HuffmanCoding.DecodingTable table = workspace.tables.primary;
+            int size = table.read(in, workspace.tables.codeLengths);
+            if (size > ALPHABET_SIZE) {
+                throw new IllegalArgumentException("Nederīgs alfabēta izmērs: " + size);
+            }
+            for (int i = 0; i < outputLength; i++) {
+                output[outputPos + i] = (byte) table.decodeSymbol(in);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "HUFFMAN";
+        }
+    }
+
+    private static final class MTFHuffmanStage implements CompressionStage {
+        @Override
+        public int id() {
+            return 6;
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out) {
+            encode(input, start, end, out, new Workspace());
+        }
+
+        @Override
+        public void encode(byte[] input, int start, int end, BitWriter out, Workspace workspace) {
+            MTFHuffmanCoder.encode(input, start, end, out, workspace.mtf);
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+            decode(input, start, end, output, outputPos, outputLength, new Workspace());
+        }
+
+        @Override
+        public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength,
+                           Workspace workspace) {
+            MTFHuffmanCoder.decode(new BitReader(input, start, end - start), output, outputPos,
+                                   outputPos + outputLength, workspace.tables);
+        }
+
+        @Override
+        public String toString() {
+            return "MTF_HUFFMAN";
+        }
+    }
+}
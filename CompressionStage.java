@@ -0,0 +1,51 @@
+/**
+ * Viens kompresijas posms (LZ77, MTF, RLE, BWT, entropijas kodētājs)
+ * Posmi tiek savienoti ar CompressionPipeline; katra posma ID tiek ierakstīts pipeline galvenē,
+ * tāpēc dekodētājs atjauno ķēdi no datiem. Posmu ID jābūt reģistrētam (CompressionPipeline.register)
+ */
+public interface CompressionStage {
+
+    /**
+     * @return Posma ID pipeline galvenē (0-255), nemainīgs visām formāta versijām
+     */
+    int id();
+
+    /**
+     * Kodē input[start, end); pipeline pēc tam izlīdzina izvadi līdz baita robežai
+     * @param input Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param out Bitu rakstītājs
+     */
+    void encode(byte[] input, int start, int end, BitWriter out);
+
+    /**
+     * Kodē kā encode(input, start, end, out); CompressionPipeline izsauc šo versiju ar savu workspace
+     * Noklusējumā workspace netiek izmantots - iebūvētie posmi tajā glabā starprezultātu masīvus
+     * @param workspace Pipeline atkārtoti izmantojamie masīvi
+     */
+    default void encode(byte[] input, int start, int end, BitWriter out, CompressionPipeline.Workspace workspace) {
+        encode(input, start, end, out);
+    }
+
+    /**
+     * Dekodē input[start, end) tieši output[outputPos, outputPos + outputLength)
+     * @param input Šī posma kodētie baiti
+     * @param start Pirmā kodētā baita indekss
+     * @param end Pozīcija aiz pēdējā kodētā baita
+     * @param output Izvades buferis
+     * @param outputPos Pirmā dekodētā baita pozīcija
+     * @param outputLength Dekodēto baitu skaits (no pipeline galvenes)
+     * @throws IllegalArgumentException Ja dati ir bojāti
+     */
+    void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength);
+
+    /**
+     * Dekodē kā decode(input, start, end, output, outputPos, outputLength) ar pipeline workspace
+     * @param workspace Pipeline atkārtoti izmantojamie masīvi un dekodēšanas tabulas
+     */
+    default void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength,
+                        CompressionPipeline.Workspace workspace) {
+        decode(input, start, end, output, outputPos, outputLength);
+    }
+}
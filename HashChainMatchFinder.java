@@ -0,0 +1,196 @@
+/**
+ * Hash-chain atbilstību meklētājs LZ77 kompresijai
+ * Indeksē 3 baitu prefiksus head/prev ķēdēs, lai nebūtu jāskenē viss sliding window
+ * Ķēdēs pozīcijas glabājas ar nobīdi, kas pieaug ar katru reset - iepriekšējo datu ieraksti
+ * kļūst negatīvi, tāpēc tabulas nav jātīra un meklētāju var lēti izmantot atkārtoti
+ */
+public class HashChainMatchFinder {
+
+    public static final int MIN_MATCH = 3;
+
+    private static final int HASH_BITS = 15;
+    private static final int HASH_SIZE = 1 << HASH_BITS;
+
+    private final int windowSize;
+    private int maxChainDepth;
+    private int niceLength;
+    private final int[] head;
+    private final int[] prev;
+    private final int prevMask;
+
+    private byte[] data;
+    private int length;
+    private int bias;  // head/prev glabā pos + bias
+    private int matchOffset;
+
+    /**
+     * @param windowSize Sliding window izmērs (2 pakāpe)
+     * @param maxChainDepth Maksimālais pārbaudāmo kandidātu skaits katrai pozīcijai
+     */
+    public HashChainMatchFinder(int windowSize, int maxChainDepth) {
+        this(windowSize, maxChainDepth, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param windowSize Sliding window izmērs (2 pakāpe)
+     * @param maxChainDepth Maksimālais pārbaudāmo kandidātu skaits katrai pozīcijai
+     * @param niceLength Atbilstības garums, pie kura meklēšana tiek pārtraukta
+     */
+    public HashChainMatchFinder(int windowSize, int maxChainDepth, int niceLength) {
+        if (Integer.bitCount(windowSize) != 1) {
+            throw new IllegalArgumentException("Loga izmēram jābūt 2 pakāpei: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.head = new int[HASH_SIZE];
+        // Divreiz lielāks par logu, lai ķēdes saite netiktu pārrakstīta, kamēr pozīcija vēl ir logā
+        this.prev = new int[windowSize * 2];
+        this.prevMask = prev.length - 1;
+        java.util.Arrays.fill(head, -1);
+        setSearchLimits(maxChainDepth, niceLength);
+    }
+
+    /**
+     * Maina meklēšanas robežas, piemēram, lai to pašu meklētāju izmantotu citā kompresijas līmenī
+     * @param maxChainDepth Maksimālais pārbaudāmo kandidātu skaits katrai pozīcijai
+     * @param niceLength Atbilstības garums, pie kura meklēšana tiek pārtraukta
+     */
+    public void setSearchLimits(int maxChainDepth, int niceLength) {
+        if (maxChainDepth < 1) {
+            throw new IllegalArgumentException("Nederīgs ķēdes dziļums: " + maxChainDepth);
+        }
+        this.maxChainDepth = maxChainDepth;
+        this.niceLength = niceLength;
+    }
+
+    /**
+     * Sagatavo meklētāju jauniem datiem
+     * @param data Ievades baiti
+     * @param length Derīgo baitu skaits
+     */
+    public void reset(byte[] data, int length) {
+        // Visi iepriekšējie ieraksti pēc jaunās nobīdes atņemšanas ir < -windowSize
+        long nextBias = (long) bias + this.length + windowSize;
+        if (nextBias + length + windowSize > Integer.MAX_VALUE) {
+            java.util.Arrays.fill(head, -1);
+            nextBias = 0;
+        }
+        this.bias = (int) nextBias;
+        this.data = data;
+        this.length = length;
+        this.matchOffset = 0;
+    }
+
+    /**
+     * Pievieno pozīciju hash ķēdēm
+     */
+    public void insert(int pos) {
+        if (pos + MIN_MATCH > length) {
+            return;
+        }
+        int h = hash(pos);
+        prev[pos & prevMask] = head[h];
+        head[h] = pos + bias;
+    }
+
+    /**
+     * Meklē garāko atbilstību pozīcijai (pati pozīcija vēl nav ievietota ķēdēs)
+     * @param pos Pašreizējā pozīcija
+     * @param maxLength Maksimālais atbilstības garums
+     * @return Atbilstības garums (0, ja nav atrasta vismaz MIN_MATCH gara atbilstība)
+     */
+    public int findMatch(int pos, int maxLength) {
+        matchOffset = 0;
+        if (maxLength < MIN_MATCH || pos + MIN_MATCH > length) {
+            return 0;
+        }
+
+        int limit = pos - windowSize;
+        int candidate = head[hash(pos)] - bias;
+        int bestLength = 0;
+        int chain = maxChainDepth;
+
+        while (candidate >= 0 && candidate >= limit && chain-- > 0) {
+            // Ātrā pārbaude: kandidāts var uzlabot rezultātu tikai tad, ja sakrīt simbols aiz bestLength
+            if (data[candidate + bestLength] == data[pos + bestLength]) {
+                int len = 0;
+                while (len < maxLength && data[candidate + len] == data[pos + len]) {
+                    len++;
+                }
+                if (len > bestLength) {
+                    bestLength = len;
+                    matchOffset = pos - candidate;
+                    if (len >= maxLength || len >= niceLength) {
+                        break;
+                    }
+                }
+            }
+
+            int next = prev[candidate & prevMask] - bias;
+            if (next >= candidate) {
+                break; // Saite jau pārrakstīta ar jaunāku pozīciju
+            }
+            candidate = next;
+        }
+
+        return bestLength >= MIN_MATCH ? bestLength : 0;
+    }
+
+    /**
+     * Savāc visas atbilstības ar pieaugošu garumu (optimālajai parsēšanai)
+     * Katrs ieraksts ir garāks par iepriekšējo un tam ir mazākais offset šim garumam
+     * @param pos Pašreizējā pozīcija
+     * @param maxLength Maksimālais atbilstības garums
+     * @param lengths Izvades masīvs garumiem
+     * @param offsets Izvades masīvs offsetiem
+     * @return Atrasto atbilstību skaits
+     */
+    public int findMatches(int pos, int maxLength, int[] lengths, int[] offsets) {
+        if (maxLength < MIN_MATCH || pos + MIN_MATCH > length) {
+            return 0;
+        }
+
+        int limit = pos - windowSize;
+        int candidate = head[hash(pos)] - bias;
+        int bestLength = MIN_MATCH - 1;
+        int count = 0;
+        int chain = maxChainDepth;
+
+        while (candidate >= 0 && candidate >= limit && chain-- > 0 && count < lengths.length) {
+            if (data[candidate + bestLength] == data[pos + bestLength]) {
+                int len = 0;
+                while (len < maxLength && data[candidate + len] == data[pos + len]) {
+                    len++;
+                }
+                if (len > bestLength) {
+                    bestLength = len;
+                    lengths[count] = len;
+                    offsets[count] = pos - candidate;
+                    count++;
+                    if (len >= maxLength || len >= niceLength) {
+                        break;
+                    }
+                }
+            }
+
+            int next = prev[candidate & prevMask] - bias;
+            if (next >= candidate) {
+                break;
+            }
+            candidate = next;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return Pēdējās atrastās atbilstības offset
+     */
+    public int getMatchOffset() {
+        return matchOffset;
+    }
+
+    private int hash(int pos) {
+        int h = ((data[pos] & 0xFF) << 16) | ((data[pos + 1] & 0xFF) << 8) | (data[pos + 2] & 0xFF);
+        return (h * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+}
@@ -3,201 +3,726 @@ import java.util.*;
 /**
  * Huffman kodēšana
  * Frekvenču balstīta kodēšana ar optimāliem koda garumiem
+ * Kodi glabājas primitīvos masīvos pēc simbola (int code, byte length)
  */
 public class HuffmanCoding {
     
+    public static final int MAX_CODE_LENGTH = 15; // Kanoniskie kodi - dekodēšanas tabulas paliek mazas
+    public static final int MAX_LEGACY_CODE_LENGTH = 31; // Vecajos kodeksos kods glabājas int
+    
+    // Kodu garumu alfabēts (kā Deflate): 0-15 garumi, 16 - atkārto iepriekšējo, 17/18 - nuļļu virknes
+    private static final int REPEAT_PREVIOUS = 16;
+    private static final int REPEAT_ZERO_SHORT = 17;
+    private static final int REPEAT_ZERO_LONG = 18;
+    private static final int CODE_LENGTH_ALPHABET = 19;
+    private static final int MAX_CODE_LENGTH_CODE_LENGTH = 7;
+    private static final int[] CODE_LENGTH_ORDER = {
+        16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15
+    };
+    private static final int MAX_ALPHABET_SIZE = 1 << 16;
+    
     /**
-     * Huffman mezgla klase
+     * Kodē datus ar kanoniskajiem Huffman kodiem
+     * Izvada tikai kodu garumus (run-length kodētus) un pašus kodus
+     * @param data Ievades dati (nenegatīvi simboli)
+     * @param out Bitu rakstītājs
      */
-    private static class Node implements Comparable<Node> {
-        Integer symbol;
-        int frequency;
-        Node left;
-        Node right;
+    public static void encode(int[] data, BitWriter out) {
+        byte[] codeLengths = codeLengths(histogram(data));
+        int[] codes = canonicalCodes(codeLengths);
         
-        Node(Integer symbol, int frequency) {
-            this.symbol = symbol;
-            this.frequency = frequency;
+        writeCodeLengths(out, codeLengths);
+        for (int value : data) {
+            out.writeBits(codes[value], codeLengths[value]);
+        }
+    }
+    
+    /**
+     * Dekodē datus, kas kodēti ar encode(int[], BitWriter)
+     * @param in Bitu lasītājs
+     * @param count Simbolu skaits
+     * @return Oriģinālie dati
+     */
+    public static int[] decode(BitReader in, int count) {
+        DecodingTable table = new DecodingTable();
+        table.read(in, new DecodingTable());
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = table.decodeSymbol(in);
+        }
+        return result;
+    }
+    
+    /**
+     * Atgriež vecā formāta Huffman kodēšanu (kodekss ar pilniem kodiem)
+     * @param encodedBytes Kodēti baiti
+     * @param codes Kods katram simbolam
+     * @param codeLengths Koda garums katram simbolam (0 = simbols netiek lietots)
+     * @return Oriģinālie dati
+     */
+    public static int[] decode(byte[] encodedBytes, int[] codes, byte[] codeLengths) {
+        if (encodedBytes == null || encodedBytes.length < 2) {
+            return new int[0];
         }
         
-        Node(Node left, Node right) {
-            this.left = left;
-            this.right = right;
-            this.frequency = left.frequency + right.frequency;
+        // Pirmais baits - derīgo bitu skaits pēdējā baitā (0 = pilns baits)
+        int lastByteBits = encodedBytes[0] & 0xFF;
+        if (lastByteBits == 0) {
+            lastByteBits = 8;
         }
+        long totalBits = (long) (encodedBytes.length - 2) * 8 + lastByteBits;
+        
+        DecodingTable table = new DecodingTable(codes, codeLengths);
+        BitReader reader = new BitReader(encodedBytes, 1, encodedBytes.length - 1);
+        
+        int[] result = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, totalBits / 4))];
+        int count = 0;
         
-        @Override
-        public int compareTo(Node other) {
-            return Integer.compare(this.frequency, other.frequency);
+        while (reader.bitPosition() < totalBits) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            result[count++] = table.decodeSymbol(reader);
         }
         
-        boolean isLeaf() {
-            return left == null && right == null;
+        if (reader.bitPosition() != totalBits) {
+            throw new IllegalArgumentException("Huffman dati beidzas koda vidū");
         }
+        
+        return Arrays.copyOf(result, count);
     }
     
     /**
-     * Kodē datus ar Huffman kodēšanu
-     * @param data Ievades dati
-     * @return Kodēti dati un kodeks
+     * Saskaita simbolu frekvences
+     * @param data Ievades dati (nenegatīvi simboli)
+     * @return Frekvence katram simbolam no 0 līdz lielākajam
      */
-    public static HuffmanResult encode(int[] data) {
-        if (data == null || data.length == 0) {
-            return new HuffmanResult(new byte[0], new HashMap<>());
+    public static int[] histogram(int[] data) {
+        int maxSymbol = 0;
+        for (int value : data) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negatīvs simbols: " + value);
+            }
+            maxSymbol = Math.max(maxSymbol, value);
         }
-        
-        // Aprēķina frekvences
-        Map<Integer, Integer> frequencies = new HashMap<>();
+        int[] histogram = new int[maxSymbol + 1];
         for (int value : data) {
-            frequencies.put(value, frequencies.getOrDefault(value, 0) + 1);
+            histogram[value]++;
+        }
+        return histogram;
+    }
+    
+    /**
+     * Aprēķina Huffman koda garumus no frekvencēm (ne garākus par MAX_CODE_LENGTH)
+     * @param histogram Frekvence katram simbolam
+     * @return Koda garums bitos katram simbolam (0 neizmantotajiem)
+     */
+    public static byte[] codeLengths(int[] histogram) {
+        return codeLengths(histogram, MAX_CODE_LENGTH);
+    }
+    
+    /**
+     * Aprēķina ierobežota garuma Huffman koda garumus no frekvencēm
+     * @param histogram Frekvence katram simbolam
+     * @param maxLength Maksimālais koda garums
+     * @return Koda garums bitos katram simbolam (0 neizmantotajiem)
+     */
+    public static byte[] codeLengths(int[] histogram, int maxLength) {
+        byte[] lengths = new byte[histogram.length];
+        codeLengths(histogram, histogram.length, maxLength, lengths, new Workspace());
+        return lengths;
+    }
+    
+    /**
+     * Aprēķina koda garumus pirmajiem size simboliem, izmantojot workspace masīvus
+     * @param histogram Frekvence katram simbolam
+     * @param size Simbolu skaits
+     * @param maxLength Maksimālais koda garums
+     * @param lengths Izvade - koda garums katram simbolam (0 neizmantotajiem)
+     * @param workspace Atkārtoti izmantojamie starprezultātu masīvi
+     */
+    public static void codeLengths(int[] histogram, int size, int maxLength, byte[] lengths, Workspace workspace) {
+        if (maxLength < 1 || maxLength > MAX_LEGACY_CODE_LENGTH) {
+            throw new IllegalArgumentException("Nederīgs maksimālais koda garums: " + maxLength);
         }
+        Arrays.fill(lengths, 0, size, (byte) 0);
         
-        // Izveido Huffman koku
-        Node root = buildHuffmanTree(frequencies);
+        int n = 0;
+        for (int symbol = 0; symbol < size; symbol++) {
+            if (histogram[symbol] > 0) {
+                n++;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
         
-        // Izveido kodeksu
-        Map<Integer, String> codebook = new HashMap<>();
-        buildCodebook(root, "", codebook);
+        // Lapas sakārtotas pēc frekvences: (frekvence << 32) | simbols
+        workspace.ensureTreeCapacity(n);
+        long[] leaves = workspace.leaves;
+        n = 0;
+        for (int symbol = 0; symbol < size; symbol++) {
+            if (histogram[symbol] > 0) {
+                leaves[n++] = ((long) histogram[symbol] << 32) | symbol;
+            }
+        }
+        Arrays.sort(leaves, 0, n);
         
-        // Kodē datus
-        StringBuilder encodedBits = new StringBuilder();
-        for (int value : data) {
-            encodedBits.append(codebook.get(value));
+        if (n == 1) {
+            lengths[(int) leaves[0]] = 1;
+            return;
+        }
+        if (n > (1 << maxLength)) {
+            throw new IllegalArgumentException("Pārāk daudz simbolu garumam " + maxLength + ": " + n);
         }
         
-        // Pārveido bitus uz baitu masīvu
-        byte[] encodedBytes = bitsToBytes(encodedBits.toString());
+        int[] depths = buildDepths(n, workspace);
         
-        return new HuffmanResult(encodedBytes, codebook);
+        // Garumu skaits; pārāk garos kodus saīsina līdz maxLength
+        int[] lengthCount = workspace.lengthCount;
+        Arrays.fill(lengthCount, 0);
+        for (int i = 0; i < n; i++) {
+            lengthCount[Math.min(depths[i], maxLength)]++;
+        }
+        
+        // Kraft summa (vienībās 2^-maxLength) nedrīkst pārsniegt 1 - kā zlib gen_bitlen:
+        // lapu no dziļuma bits nolaiž par līmeni zemāk, blakus tai novieto vienu no pārāk garajiem
+        long kraft = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            kraft += (long) lengthCount[length] << (maxLength - length);
+        }
+        while (kraft > (1L << maxLength)) {
+            int bits = maxLength - 1;
+            while (lengthCount[bits] == 0) {
+                bits--;
+            }
+            lengthCount[bits]--;
+            lengthCount[bits + 1] += 2;
+            lengthCount[maxLength]--;
+            kraft--;
+        }
+        
+        // Retākie simboli (sakārtoti pirmie) saņem garākos kodus
+        int leaf = 0;
+        for (int length = maxLength; length >= 1; length--) {
+            for (int count = lengthCount[length]; count > 0; count--) {
+                lengths[(int) leaves[leaf++]] = (byte) length;
+            }
+        }
     }
     
     /**
-     * Atgriež Huffman kodēšanu
-     * @param encodedBytes Kodēti baiti
-     * @param codebook Kodekss
-     * @return Oriģinālie dati
+     * Piešķir kanoniskos kodus pēc garumiem (īsākie kodi un mazākie simboli pirmie)
+     * @param codeLengths Koda garums katram simbolam
+     * @return Kods katram simbolam
      */
-    public static int[] decode(byte[] encodedBytes, Map<Integer, String> codebook) {
-        if (encodedBytes == null || encodedBytes.length == 0) {
-            return new int[0];
+    public static int[] canonicalCodes(byte[] codeLengths) {
+        int[] codes = new int[codeLengths.length];
+        canonicalCodes(codeLengths, codeLengths.length, codes, new Workspace());
+        return codes;
+    }
+    
+    /**
+     * Piešķir kanoniskos kodus pirmajiem size simboliem
+     * @param codeLengths Koda garums katram simbolam
+     * @param size Simbolu skaits
+     * @param codes Izvade - kods katram simbolam (0 neizmantotajiem)
+     * @param workspace Atkārtoti izmantojamie starprezultātu masīvi
+     */
+    public static void canonicalCodes(byte[] codeLengths, int size, int[] codes, Workspace workspace) {
+        int[] lengthCount = workspace.lengthCount;
+        Arrays.fill(lengthCount, 0);
+        for (int symbol = 0; symbol < size; symbol++) {
+            lengthCount[codeLengths[symbol]]++;
         }
+        lengthCount[0] = 0;
         
-        // Pārveido baitus uz bitiem
-        String bits = bytesToBits(encodedBytes);
-        
-        // Izveido reverso kodeksu
-        Map<String, Integer> reverseCodebook = new HashMap<>();
-        for (Map.Entry<Integer, String> entry : codebook.entrySet()) {
-            reverseCodebook.put(entry.getValue(), entry.getKey());
+        int[] nextCode = workspace.nextCode;
+        int code = 0;
+        for (int bits = 1; bits <= MAX_LEGACY_CODE_LENGTH; bits++) {
+            code = (code + lengthCount[bits - 1]) << 1;
+            nextCode[bits] = code;
         }
         
-        // Dekodē
-        List<Integer> result = new ArrayList<>();
-        StringBuilder currentCode = new StringBuilder();
+        for (int symbol = 0; symbol < size; symbol++) {
+            int length = codeLengths[symbol];
+            codes[symbol] = length > 0 ? nextCode[length]++ : 0;
+        }
+    }
+    
+    /**
+     * Huffman koka dziļumi ar divu rindu metodi (lapas workspace.leaves jau sakārtotas augošā secībā)
+     * @return workspace.depth, kura pirmie n elementi ir lapu dziļumi
+     */
+    private static int[] buildDepths(int n, Workspace workspace) {
+        long[] weight = workspace.weight;
+        int[] parent = workspace.parent;
+        for (int i = 0; i < n; i++) {
+            weight[i] = workspace.leaves[i] >>> 32;
+        }
         
-        for (char bit : bits.toCharArray()) {
-            currentCode.append(bit);
-            if (reverseCodebook.containsKey(currentCode.toString())) {
-                result.add(reverseCodebook.get(currentCode.toString()));
-                currentCode.setLength(0);
-            }
+        // Iekšējie mezgli rodas nedilstošā secībā, tāpēc pietiek ar diviem rādītājiem
+        int leaf = 0;
+        int node = n;
+        for (int k = n; k < 2 * n - 1; k++) {
+            int a = (leaf < n && (node >= k || weight[leaf] <= weight[node])) ? leaf++ : node++;
+            int b = (leaf < n && (node >= k || weight[leaf] <= weight[node])) ? leaf++ : node++;
+            weight[k] = weight[a] + weight[b];
+            parent[a] = k;
+            parent[b] = k;
         }
         
-        return result.stream().mapToInt(i -> i).toArray();
+        // Vecāks vienmēr ir ar lielāku indeksu - dziļumi vienā gājienā no saknes
+        int[] depth = workspace.depth;
+        depth[2 * n - 2] = 0;
+        for (int i = 2 * n - 3; i >= 0; i--) {
+            depth[i] = depth[parent[i]] + 1;
+        }
+        return depth;
     }
     
     /**
-     * Izveido Huffman koku
+     * Ieraksta kodu garumus kompaktā formā (kā Deflate): garumu virknes tiek run-length kodētas
+     * un pašas kodētas ar mazu Huffman kodu, kura garumi ir 3 bitu lauki
+     * @param out Bitu rakstītājs
+     * @param codeLengths Koda garums katram simbolam
      */
-    private static Node buildHuffmanTree(Map<Integer, Integer> frequencies) {
-        PriorityQueue<Node> queue = new PriorityQueue<>();
+    public static void writeCodeLengths(BitWriter out, byte[] codeLengths) {
+        writeCodeLengths(out, codeLengths, codeLengths.length, new Workspace());
+    }
+    
+    /**
+     * Ieraksta pirmo size simbolu kodu garumus, izmantojot workspace masīvus
+     * @param out Bitu rakstītājs
+     * @param codeLengths Koda garums katram simbolam
+     * @param size Simbolu skaits
+     * @param workspace Atkārtoti izmantojamie starprezultātu masīvi
+     */
+    public static void writeCodeLengths(BitWriter out, byte[] codeLengths, int size, Workspace workspace) {
+        int n = size;
+        while (n > 0 && codeLengths[n - 1] == 0) {
+            n--;
+        }
+        if (n >= MAX_ALPHABET_SIZE) {
+            throw new IllegalArgumentException("Pārāk liels alfabēts: " + n);
+        }
+        out.writeBits(n, 16);
+        if (n == 0) {
+            return;
+        }
         
-        for (Map.Entry<Integer, Integer> entry : frequencies.entrySet()) {
-            queue.offer(new Node(entry.getKey(), entry.getValue()));
+        // Run-length kodēšana: simboli un to papildu biti
+        workspace.ensureRunCapacity(n);
+        int[] symbols = workspace.symbols;
+        int[] extra = workspace.extra;
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            int length = codeLengths[i];
+            int run = 1;
+            while (i + run < n && codeLengths[i + run] == length) {
+                run++;
+            }
+            i += run;
+            
+            if (length == 0) {
+                while (run >= 11) {
+                    int r = Math.min(run, 138);
+                    symbols[count] = REPEAT_ZERO_LONG;
+                    extra[count++] = r - 11;
+                    run -= r;
+                }
+                if (run >= 3) {
+                    symbols[count] = REPEAT_ZERO_SHORT;
+                    extra[count++] = run - 3;
+                    run = 0;
+                }
+            } else {
+                symbols[count++] = length;
+                run--;
+                while (run >= 3) {
+                    int r = Math.min(run, 6);
+                    symbols[count] = REPEAT_PREVIOUS;
+                    extra[count++] = r - 3;
+                    run -= r;
+                }
+            }
+            while (run-- > 0) {
+                symbols[count++] = length;
+            }
         }
         
-        // Ja tikai viens simbols
-        if (queue.size() == 1) {
-            Node node = queue.poll();
-            return new Node(node, new Node(null, 0));
+        int[] histogram = workspace.lengthHistogram;
+        Arrays.fill(histogram, 0);
+        for (int k = 0; k < count; k++) {
+            histogram[symbols[k]]++;
         }
+        byte[] lengthLengths = workspace.lengthLengths;
+        int[] lengthCodes = workspace.lengthCodes;
+        codeLengths(histogram, CODE_LENGTH_ALPHABET, MAX_CODE_LENGTH_CODE_LENGTH, lengthLengths, workspace);
+        canonicalCodes(lengthLengths, CODE_LENGTH_ALPHABET, lengthCodes, workspace);
         
-        while (queue.size() > 1) {
-            Node left = queue.poll();
-            Node right = queue.poll();
-            queue.offer(new Node(left, right));
+        int used = CODE_LENGTH_ALPHABET;
+        while (used > 4 && lengthLengths[CODE_LENGTH_ORDER[used - 1]] == 0) {
+            used--;
+        }
+        out.writeBits(used - 4, 4);
+        for (int k = 0; k < used; k++) {
+            out.writeBits(lengthLengths[CODE_LENGTH_ORDER[k]], 3);
         }
         
-        return queue.poll();
+        for (int k = 0; k < count; k++) {
+            int symbol = symbols[k];
+            out.writeBits(lengthCodes[symbol], lengthLengths[symbol]);
+            if (symbol == REPEAT_PREVIOUS) {
+                out.writeBits(extra[k], 2);
+            } else if (symbol == REPEAT_ZERO_SHORT) {
+                out.writeBits(extra[k], 3);
+            } else if (symbol == REPEAT_ZERO_LONG) {
+                out.writeBits(extra[k], 7);
+            }
+        }
     }
     
     /**
-     * Izveido kodeksu no koka
+     * Nolasa kodu garumus, kas ierakstīti ar writeCodeLengths
+     * @param in Bitu lasītājs
+     * @return Koda garums katram simbolam
      */
-    private static void buildCodebook(Node node, String code, Map<Integer, String> codebook) {
-        if (node.isLeaf()) {
-            if (node.symbol != null) {
-                codebook.put(node.symbol, code.isEmpty() ? "0" : code);
+    public static byte[] readCodeLengths(BitReader in) {
+        DecodingTable target = new DecodingTable();
+        int count = readCodeLengths(in, target, new DecodingTable());
+        return Arrays.copyOf(target.codeLengths, count);
+    }
+    
+    /**
+     * Nolasa kodu garumus target garumu buferī; lengthTable tiek pārbūvēta koda garumu alfabētam
+     * @return Alfabēta izmērs
+     */
+    private static int readCodeLengths(BitReader in, DecodingTable target, DecodingTable lengthTable) {
+        int n = in.readBits(16);
+        byte[] codeLengths = target.codeLengthBuffer(n);
+        if (n == 0) {
+            return 0;
+        }
+        
+        int used = in.readBits(4) + 4;
+        byte[] lengthLengths = lengthTable.codeLengthBuffer(CODE_LENGTH_ALPHABET);
+        Arrays.fill(lengthLengths, 0, CODE_LENGTH_ALPHABET, (byte) 0);
+        for (int k = 0; k < used; k++) {
+            lengthLengths[CODE_LENGTH_ORDER[k]] = (byte) in.readBits(3);
+        }
+        lengthTable.buildCanonical(lengthLengths, CODE_LENGTH_ALPHABET);
+        
+        int i = 0;
+        while (i < n) {
+            int symbol = lengthTable.decodeSymbol(in);
+            int run;
+            byte value;
+            if (symbol < REPEAT_PREVIOUS) {
+                codeLengths[i++] = (byte) symbol;
+                continue;
+            } else if (symbol == REPEAT_PREVIOUS) {
+                if (i == 0) {
+                    throw new IllegalArgumentException("Atkārtojums bez iepriekšējā garuma");
+                }
+                value = codeLengths[i - 1];
+                run = 3 + in.readBits(2);
+            } else if (symbol == REPEAT_ZERO_SHORT) {
+                value = 0;
+                run = 3 + in.readBits(3);
+            } else {
+                value = 0;
+                run = 11 + in.readBits(7);
+            }
+            if (i + run > n) {
+                throw new IllegalArgumentException("Kodu garumi pārsniedz alfabētu");
+            }
+            while (run-- > 0) {
+                codeLengths[i++] = value;
             }
-        } else {
-            buildCodebook(node.left, code + "0", codebook);
-            buildCodebook(node.right, code + "1", codebook);
         }
+        return n;
     }
     
     /**
-     * Pārveido bitus uz baitiem
+     * Atkārtoti izmantojami masīvi koda garumu aprēķinam un ierakstīšanai
+     * Masīvi tiek paplašināti pēc vajadzības; viens Workspace vienlaikus jālieto vienā pavedienā
      */
-    private static byte[] bitsToBytes(String bits) {
-        int byteCount = (bits.length() + 7) / 8;
-        byte[] bytes = new byte[byteCount + 1]; // +1 lai saglabātu garumu
-        bytes[0] = (byte) (bits.length() % 8); // Pēdējā baita bitu skaits
+    public static final class Workspace {
+        private long[] leaves = new long[0];
+        private long[] weight = new long[0];
+        private int[] parent = new int[0];
+        private int[] depth = new int[0];
+        private int[] symbols = new int[0];
+        private int[] extra = new int[0];
+        private final int[] lengthCount = new int[MAX_LEGACY_CODE_LENGTH + 1];
+        private final int[] nextCode = new int[MAX_LEGACY_CODE_LENGTH + 1];
+        private final int[] lengthHistogram = new int[CODE_LENGTH_ALPHABET];
+        private final byte[] lengthLengths = new byte[CODE_LENGTH_ALPHABET];
+        private final int[] lengthCodes = new int[CODE_LENGTH_ALPHABET];
         
-        for (int i = 0; i < bits.length(); i++) {
-            if (bits.charAt(i) == '1') {
-                bytes[i / 8 + 1] |= (1 << (7 - (i % 8)));
+        private void ensureTreeCapacity(int leafCount) {
+            if (leaves.length < leafCount) {
+                leaves = new long[leafCount];
+                weight = new long[2 * leafCount];
+                parent = new int[2 * leafCount];
+                depth = new int[2 * leafCount];
             }
         }
         
-        return bytes;
+        private void ensureRunCapacity(int symbolCount) {
+            if (symbols.length < symbolCount) {
+                symbols = new int[symbolCount];
+                extra = new int[symbolCount];
+            }
+        }
     }
     
     /**
-     * Pārveido baitus uz bitiem
+     * Atkārtoti izmantojamas dekodēšanas tabulas blokiem ar vienu vai diviem kanoniskiem alfabētiem
+     * Katram blokam tabulas tiek pārbūvētas tajos pašos masīvos; viens objekts vienlaikus jālieto vienā pavedienā
      */
-    private static String bytesToBits(byte[] bytes) {
-        if (bytes.length < 2) {
-            return "";
+    public static final class DecodingTables {
+        final DecodingTable codeLengths = new DecodingTable(); // Koda garumu alfabēts galvenē
+        final DecodingTable primary = new DecodingTable();     // Literāļi/garumi vai bloka simboli
+        final DecodingTable distance = new DecodingTable();    // Attālumi
+    }
+    
+    /**
+     * Daudzlīmeņu dekodēšanas tabula
+     * Saknes tabula ar ROOT_BITS ierakstiem atrisina īsos kodus ar vienu probe,
+     * garākiem kodiem ieraksts norāda uz apakštabulu nākamajiem bitiem
+     * Kanoniskajiem kodiem (līdz 15 bitiem) pietiek ar diviem līmeņiem
+     * Tabulu var pārbūvēt ar build vai read - masīvi tiek paplašināti tikai pēc vajadzības
+     */
+    public static class DecodingTable {
+        private static final int ROOT_BITS = 10;
+        private static final int MAX_SUB_BITS = 8;
+        
+        // Lapai: symbols = simbols, lengths = patērējamo bitu skaits šajā līmenī (> 0)
+        // Apakštabulai: symbols = tabulas sākums, lengths = -(apakštabulas biti)
+        // lengths == 0 - neizmantots kods
+        private int[] symbols = new int[1 << ROOT_BITS];
+        private byte[] lengths = new byte[1 << ROOT_BITS];
+        private int size;
+        private int rootBits = 1;
+        
+        // build starprezultāti
+        private int[] order = new int[0];          // Izmantotie simboli koda bitu secībā
+        private long[] sortKeys = new long[0];     // Ne-kanoniskiem kodiem: kods pa kreisi << 32 | simbols
+        private int[] canonicalCodes = new int[0];
+        private byte[] codeLengths = new byte[0];  // read nolasītie garumi
+        private final int[] lengthCount = new int[MAX_LEGACY_CODE_LENGTH + 1];
+        
+        public DecodingTable() {
+        }
+        
+        public DecodingTable(int[] codes, byte[] codeLengths) {
+            build(codes, codeLengths);
+        }
+        
+        /**
+         * Pārbūvē tabulu visiem codeLengths simboliem
+         * @param codes Kods katram simbolam
+         * @param codeLengths Koda garums katram simbolam (0 = simbols netiek lietots)
+         */
+        public void build(int[] codes, byte[] codeLengths) {
+            build(codes, codeLengths, codeLengths.length);
+        }
+        
+        /**
+         * Pārbūvē tabulu pirmajiem count simboliem ar kanoniskajiem kodiem pēc codeLengths
+         */
+        public void buildCanonical(byte[] codeLengths, int count) {
+            build(null, codeLengths, count);
+        }
+        
+        /**
+         * Nolasa writeCodeLengths galveni un pārbūvē tabulu ar kanoniskajiem kodiem
+         * @param in Bitu lasītājs
+         * @param lengthTable Tabula koda garumu alfabētam (tiek pārbūvēta)
+         * @return Alfabēta izmērs
+         */
+        public int read(BitReader in, DecodingTable lengthTable) {
+            int count = readCodeLengths(in, this, lengthTable);
+            buildCanonical(codeLengths, count);
+            return count;
         }
         
-        int lastByteBits = bytes[0] & 0xFF;
-        StringBuilder bits = new StringBuilder();
+        /**
+         * Dekodē vienu simbolu
+         */
+        public int decodeSymbol(BitReader reader) {
+            int base = 0;
+            int bits = rootBits;
+            while (true) {
+                int index = base + reader.peekBits(bits);
+                int length = lengths[index];
+                if (length > 0) {
+                    reader.skipBits(length);
+                    return symbols[index];
+                }
+                if (length == 0) {
+                    throw new IllegalArgumentException("Nederīgs Huffman kods");
+                }
+                reader.skipBits(bits);
+                base = symbols[index];
+                bits = -length;
+            }
+        }
         
-        for (int i = 1; i < bytes.length; i++) {
-            int bitsToRead = (i == bytes.length - 1) ? lastByteBits : 8;
-            for (int j = 0; j < bitsToRead; j++) {
-                if ((bytes[i] & (1 << (7 - j))) != 0) {
-                    bits.append('1');
-                } else {
-                    bits.append('0');
+        /**
+         * Simboli tiek sakārtoti pēc garuma un numura ar skaitīšanu - kanoniskajiem kodiem tā ir arī koda
+         * bitu secība, tāpēc katras apakštabulas kodi ir blakus un tabula tiek aizpildīta vienā gājienā
+         * (kā zlib inflate_table); citiem prefiksu kodiem secība tiek izlabota ar kārtošanu
+         * @param codes Kods katram simbolam vai null - kanoniskie kodi pēc codeLengths
+         */
+        private void build(int[] codes, byte[] codeLengths, int count) {
+            int[] lengthCount = this.lengthCount;
+            Arrays.fill(lengthCount, 0);
+            int maxLength = 0;
+            for (int symbol = 0; symbol < count; symbol++) {
+                int length = codeLengths[symbol];
+                if (length < 0 || length > MAX_LEGACY_CODE_LENGTH) {
+                    throw new IllegalArgumentException("Nederīgs Huffman koda garums: " + length);
                 }
+                lengthCount[length]++;
+                maxLength = Math.max(maxLength, length);
             }
+            int members = count - lengthCount[0];
+            if (order.length < members) {
+                order = new int[members];
+            }
+            
+            // lengthCount[length] - pirmā šī garuma simbola vieta order masīvā
+            int offset = 0;
+            for (int length = 1; length <= maxLength; length++) {
+                int lengthMembers = lengthCount[length];
+                lengthCount[length] = offset;
+                offset += lengthMembers;
+            }
+            for (int symbol = 0; symbol < count; symbol++) {
+                if (codeLengths[symbol] > 0) {
+                    order[lengthCount[codeLengths[symbol]]++] = symbol;
+                }
+            }
+            
+            if (codes == null) {
+                if (canonicalCodes.length < count) {
+                    canonicalCodes = new int[count];
+                }
+                codes = canonicalCodes;
+                int code = 0;
+                int previousLength = 0;
+                for (int m = 0; m < members; m++) {
+                    int length = codeLengths[order[m]];
+                    code = m == 0 ? 0 : (code + 1) << (length - previousLength);
+                    codes[order[m]] = code;
+                    previousLength = length;
+                }
+            } else {
+                for (int m = 1; m < members; m++) {
+                    if (leftAligned(codes, codeLengths, order[m]) < leftAligned(codes, codeLengths, order[m - 1])) {
+                        sortByCode(codes, codeLengths, members);
+                        break;
+                    }
+                }
+            }
+            
+            rootBits = Math.max(1, Math.min(ROOT_BITS, maxLength));
+            size = 0;
+            fill(codes, codeLengths, 0, members, 0, rootBits);
         }
         
-        return bits.toString();
-    }
-    
-    /**
-     * Rezultāta klase Huffman kodēšanai
-     */
-    public static class HuffmanResult {
-        public final byte[] encodedData;
-        public final Map<Integer, String> codebook;
+        /**
+         * Aizpilda tabulu simboliem order[from, to), kuru kodu pirmie consumed biti jau ir patērēti
+         * @return Tabulas sākuma indekss
+         */
+        private int fill(int[] codes, byte[] codeLengths, int from, int to, int consumed, int tableBits) {
+            int base = allocate(1 << tableBits);
+            int m = from;
+            while (m < to) {
+                int symbol = order[m];
+                int remaining = codeLengths[symbol] - consumed;
+                if (remaining <= tableBits) {
+                    int first = base + (int) (rest(codes, symbol, remaining) << (tableBits - remaining));
+                    int last = first + (1 << (tableBits - remaining));
+                    Arrays.fill(symbols, first, last, symbol);
+                    Arrays.fill(lengths, first, last, (byte) remaining);
+                    m++;
+                    continue;
+                }
+                
+                // Garākie kodi ar vienādiem nākamajiem tableBits bitiem ir blakus - viena apakštabula
+                int chunk = chunk(codes, codeLengths, symbol, consumed, tableBits);
+                int groupEnd = m;
+                int maxRemaining = 0;
+                while (groupEnd < to) {
+                    int member = order[groupEnd];
+                    int memberRemaining = codeLengths[member] - consumed;
+                    if (memberRemaining <= tableBits || chunk(codes, codeLengths, member, consumed, tableBits) != chunk) {
+                        break;
+                    }
+                    maxRemaining = Math.max(maxRemaining, memberRemaining - tableBits);
+                    groupEnd++;
+                }
+                int subBits = Math.min(maxRemaining, MAX_SUB_BITS);
+                int subBase = fill(codes, codeLengths, m, groupEnd, consumed + tableBits, subBits);
+                symbols[base + chunk] = subBase;
+                lengths[base + chunk] = (byte) -subBits;
+                m = groupEnd;
+            }
+            return base;
+        }
+        
+        private static long rest(int[] codes, int symbol, int remaining) {
+            return codes[symbol] & ((1L << remaining) - 1);
+        }
+        
+        private static int chunk(int[] codes, byte[] codeLengths, int symbol, int consumed, int tableBits) {
+            int remaining = codeLengths[symbol] - consumed;
+            return (int) (rest(codes, symbol, remaining) >>> (remaining - tableBits));
+        }
+        
+        private static long leftAligned(int[] codes, byte[] codeLengths, int symbol) {
+            int length = codeLengths[symbol];
+            return rest(codes, symbol, length) << (MAX_LEGACY_CODE_LENGTH - length);
+        }
+        
+        /**
+         * Sakārto order[0, members) pēc kodu bitiem (vecajiem kodeksiem ar ne-kanoniskiem kodiem)
+         */
+        private void sortByCode(int[] codes, byte[] codeLengths, int members) {
+            if (sortKeys.length < members) {
+                sortKeys = new long[members];
+            }
+            for (int m = 0; m < members; m++) {
+                sortKeys[m] = leftAligned(codes, codeLengths, order[m]) << 32 | order[m];
+            }
+            Arrays.sort(sortKeys, 0, members);
+            for (int m = 0; m < members; m++) {
+                order[m] = (int) sortKeys[m];
+            }
+        }
         
-        public HuffmanResult(byte[] encodedData, Map<Integer, String> codebook) {
-            this.encodedData = encodedData;
-            this.codebook = codebook;
+        private byte[] codeLengthBuffer(int count) {
+            if (codeLengths.length < count) {
+                codeLengths = new byte[count];
+            }
+            return codeLengths;
+        }
+        
+        private int allocate(int entries) {
+            int base = size;
+            size += entries;
+            if (size > symbols.length) {
+                int capacity = Math.max(size, symbols.length * 2);
+                symbols = Arrays.copyOf(symbols, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            Arrays.fill(lengths, base, size, (byte) 0);
+            return base;
         }
     }
 }
-
@@ -0,0 +1,73 @@
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * LZ77 atbilstību meklēšanas benchmark
+ * Salīdzina pilno loga skenēšanu ar hash-chain meklētāju uz TestFiles korpusa
+ */
+public class LZ77Benchmark {
+
+    private static final String[] TEST_FILES = {
+        "TestFiles/File1.html",
+        "TestFiles/File2.html",
+        "TestFiles/File3.html",
+        "TestFiles/File4.html"
+    };
+
+    private static final int[] CHAIN_DEPTHS = {16, 128, 1024, 8192};
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("════════════════════════════════════════════════════════════════════════════════════");
+        System.out.println("LZ77 Match Finder Benchmark (brute force vs hash chains vs levels)");
+        System.out.println("════════════════════════════════════════════════════════════════════════════════════\n");
+
+        for (String testFile : TEST_FILES) {
+            byte[] input = Files.readAllBytes(Paths.get(testFile));
+            System.out.println(testFile + " (" + input.length + " bytes)");
+            System.out.println("─────────────────────────────────────────────────────────────────────────────────");
+
+            LZ77TokenBuffer reference = new LZ77TokenBuffer();
+            long start = System.nanoTime();
+            LZ77Compression.compressBruteForce(input, reference);
+            long bruteForceNanos = System.nanoTime() - start;
+            printRow("brute force", reference, bruteForceNanos, bruteForceNanos, input);
+
+            for (int depth : CHAIN_DEPTHS) {
+                LZ77Compression.LevelConfig config =
+                    new LZ77Compression.LevelConfig(depth, Integer.MAX_VALUE, LZ77Compression.Parsing.GREEDY);
+                LZ77TokenBuffer tokens = new LZ77TokenBuffer();
+                long best = Long.MAX_VALUE;
+                for (int run = 0; run < RUNS; run++) {
+                    start = System.nanoTime();
+                    LZ77Compression.compress(input, config, tokens);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                printRow("chain " + depth, tokens, best, bruteForceNanos, input);
+            }
+
+            for (int level = LZ77Compression.MIN_LEVEL; level <= LZ77Compression.MAX_LEVEL; level++) {
+                LZ77TokenBuffer tokens = new LZ77TokenBuffer();
+                start = System.nanoTime();
+                LZ77Compression.compress(input, LZ77Compression.forLevel(level), tokens);
+                long nanos = System.nanoTime() - start;
+                int compressedSize = OWOCompressor.compress(input, level).length;
+                printRow("level " + level + " (" + compressedSize + " B)", tokens, nanos, bruteForceNanos, input);
+            }
+            System.out.println();
+        }
+    }
+
+    private static void printRow(String name, LZ77TokenBuffer tokens, long nanos,
+                                 long bruteForceNanos, byte[] input) {
+        long matchedBytes = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            matchedBytes += tokens.length(i);
+        }
+        boolean roundTrip = Arrays.equals(LZ77Compression.decompressToBytes(tokens), input);
+        System.out.printf("  %-20s | %9.2f ms | speedup %7.1fx | tokens %8d | matched %5.1f%% | %s%n",
+                          name, nanos / 1e6, (double) bruteForceNanos / nanos, tokens.size(),
+                          100.0 * matchedBytes / input.length, roundTrip ? "✓" : "✗");
+    }
+}
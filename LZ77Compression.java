@@ -3,39 +3,507 @@ import java.util.*;
 /**
  * LZ77 style kompresija ar sliding window
  * Labāk darbojas tekstam nekā BWT un ir vienkāršāka
+ * Kompresija strādā ar baitiem un LZSS tokeniem: literālis vai atbilstība bez nextChar
+ * Vecie (offset, length, nextChar) tripleti un char tokeni tiek tikai dekodēti
  */
 public class LZ77Compression {
     
-    private static final int WINDOW_SIZE = 8192; // Lielāks logs = labāka kompresija
+    static final int WINDOW_SIZE = 8192; // Lielāks logs = labāka kompresija
     private static final int LOOKAHEAD_SIZE = 258; // Lielāks lookahead = labāka kompresija
+    private static final int EXIT_CHECK_INTERVAL = 32 * 1024; // Cik bieži novērtēt, vai kompresija neatmaksājas
+    private static final int MATCH_COST_BITS = 20;  // Tipiska atbilstības cena: garuma un attāluma kodi + papildu biti
+    private static final double MAX_PROBE_CORRECTION = 1.1; // Izlases novērtējums atlikumam tiek palielināts ne vairāk
+    
+    /** Baitu tokeniem: atbilstībai nav pievienota nākamā baita (LZSS vai ievades beigas) */
+    public static final char NO_NEXT_BYTE = 0x100;
+    
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 9;
+    public static final int DEFAULT_LEVEL = 6;
+    
+    /**
+     * Parsēšanas stratēģija
+     */
+    public enum Parsing {
+        GREEDY,  // Uzreiz ņem garāko atbilstību
+        LAZY,    // Pirms atbilstības izmantošanas pārbauda pozīciju pos+1
+        OPTIMAL  // Minimizē kopējo bitu skaitu pēc Huffman koda garumiem
+    }
     
     /**
-     * Kompresē tekstu ar LZ77
-     * @param input Ievades teksts
-     * @return Kompresēti dati kā (offset, length, nextChar) tripleti
+     * Kompresijas līmeņa parametri
      */
-    public static List<LZ77Token> compress(String input) {
-        if (input == null || input.isEmpty()) {
-            return new ArrayList<>();
+    public static class LevelConfig {
+        public final int maxChainDepth;
+        public final int niceLength;
+        public final Parsing parsing;
+        public final int lazyLookahead;   // LAZY: cik nākamās pozīcijas (1 vai 2) pārbaudīt pirms atbilstības
+        public final int optimalPasses;   // OPTIMAL: optimālās parsēšanas reizes, katru ar iepriekšējās cenām
+        
+        public LevelConfig(int maxChainDepth, int niceLength, Parsing parsing) {
+            this(maxChainDepth, niceLength, parsing, 1, 1);
+        }
+        
+        public LevelConfig(int maxChainDepth, int niceLength, Parsing parsing, int lazyLookahead, int optimalPasses) {
+            if (lazyLookahead < 1 || lazyLookahead > 2 || optimalPasses < 1) {
+                throw new IllegalArgumentException("Nederīgi parsēšanas parametri: lookahead " + lazyLookahead
+                                                   + ", passes " + optimalPasses);
+            }
+            this.maxChainDepth = maxChainDepth;
+            this.niceLength = niceLength;
+            this.parsing = parsing;
+            this.lazyLookahead = lazyLookahead;
+            this.optimalPasses = optimalPasses;
+        }
+    }
+    
+    // Indekss = līmenis - 1: zemi līmeņi ātrumam, augsti - labākai kompresijai
+    // 8 KB logā ķēdes dziļums virs 256 gandrīz neko nedod, tāpēc 7 un 9 atšķiras parsēšanā:
+    // 7 pārbauda arī pos+2, 9 atkārto optimālo parsēšanu ar cenām no iepriekšējās
+    private static final LevelConfig[] LEVELS = {
+        new LevelConfig(4, 16, Parsing.GREEDY),
+        new LevelConfig(8, 32, Parsing.GREEDY),
+        new LevelConfig(32, 64, Parsing.GREEDY),
+        new LevelConfig(16, 64, Parsing.LAZY),
+        new LevelConfig(64, 128, Parsing.LAZY),
+        new LevelConfig(256, LOOKAHEAD_SIZE, Parsing.LAZY),
+        new LevelConfig(1024, LOOKAHEAD_SIZE, Parsing.LAZY, 2, 1),
+        new LevelConfig(1024, LOOKAHEAD_SIZE, Parsing.OPTIMAL),
+        new LevelConfig(1024, LOOKAHEAD_SIZE, Parsing.OPTIMAL, 1, 3)
+    };
+    
+    /**
+     * Atgriež parametrus kompresijas līmenim
+     * @param level Līmenis no MIN_LEVEL līdz MAX_LEVEL
+     */
+    public static LevelConfig forLevel(int level) {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Nederīgs kompresijas līmenis: " + level);
+        }
+        return LEVELS[level - 1];
+    }
+    
+    /**
+     * Kompresē baitus ar LZ77
+     * @param input Ievades baiti
+     * @return Kompresēti dati kā literāļu un atbilstību tokeni
+     */
+    public static List<LZ77Token> compress(byte[] input) {
+        return compress(input, DEFAULT_LEVEL);
+    }
+    
+    /**
+     * Kompresē baitus ar LZ77 norādītajā līmenī
+     * @param input Ievades baiti
+     * @param level Kompresijas līmenis (1 - ātrākais, 9 - labākā kompresija)
+     * @return Kompresēti dati kā literāļu un atbilstību tokeni
+     */
+    public static List<LZ77Token> compress(byte[] input, int level) {
+        return compress(input, forLevel(level));
+    }
+    
+    /**
+     * Kompresē baitus ar LZ77, atbilstības meklējot hash ķēdēs
+     * @param data Ievades baiti
+     * @param config Ķēdes dziļums, nice garums un parsēšanas stratēģija
+     * @return Kompresēti dati kā literāļu un atbilstību tokeni
+     */
+    public static List<LZ77Token> compress(byte[] data, LevelConfig config) {
+        LZ77TokenBuffer out = new LZ77TokenBuffer();
+        compress(data, config, out);
+        return out.toTokens();
+    }
+    
+    /**
+     * Kompresē baitus ar LZ77 primitīvu tokenu buferī (bez objekta katram tokenam)
+     * @param data Ievades baiti
+     * @param config Ķēdes dziļums, nice garums un parsēšanas stratēģija
+     * @param out Izvades buferis, tiek iztukšots pirms rakstīšanas
+     */
+    public static void compress(byte[] data, LevelConfig config, LZ77TokenBuffer out) {
+        compress(data, 0, data == null ? 0 : data.length, config, out);
+    }
+    
+    /**
+     * Kompresē data[start, end), atbilstībām izmantojot arī vēsturi pirms start
+     * (pēdējos WINDOW_SIZE baitus, piemēram, iepriekšējā bloka beigas)
+     * @param data Vēsture un ievades baiti
+     * @param start Pirmā kompresējamā baita indekss
+     * @param end Pozīcija aiz pēdējā kompresējamā baita
+     * @param config Ķēdes dziļums, nice garums un parsēšanas stratēģija
+     * @param out Izvades buferis, tiek iztukšots pirms rakstīšanas
+     */
+    public static void compress(byte[] data, int start, int end, LevelConfig config, LZ77TokenBuffer out) {
+        compress(data, Math.max(0, start - WINDOW_SIZE), start, end, config, out);
+    }
+    
+    /**
+     * Kompresē data[start, end), atbilstībām izmantojot vēsturi data[historyStart, start)
+     * @param data Vēsture un ievades baiti
+     * @param historyStart Agrākā pozīcija, uz kuru drīkst atsaukties (start, ja vēstures nav)
+     * @param start Pirmā kompresējamā baita indekss
+     * @param end Pozīcija aiz pēdējā kompresējamā baita
+     * @param config Ķēdes dziļums, nice garums un parsēšanas stratēģija
+     * @param out Izvades buferis, tiek iztukšots pirms rakstīšanas
+     */
+    public static void compress(byte[] data, int historyStart, int start, int end, LevelConfig config,
+                                LZ77TokenBuffer out) {
+        compress(data, historyStart, start, end, config, out, new Workspace());
+    }
+    
+    /**
+     * Kompresē data[historyStart, end) kā iepriekš, meklētājam un parsēšanas masīviem izmantojot workspace
+     * @param workspace Atkārtoti izmantojamais meklētājs un masīvi (skatīt Workspace)
+     */
+    public static void compress(byte[] data, int historyStart, int start, int end, LevelConfig config,
+                                LZ77TokenBuffer out, Workspace workspace) {
+        compress(data, historyStart, start, end, config, out, workspace, 0);
+    }
+    
+    /**
+     * Kompresē kā iepriekš, bet ik pēc EXIT_CHECK_INTERVAL baitiem novērtē visa bloka izvades izmēru:
+     * apstrādātajai daļai pēc līdzšinējiem tokeniem (literāļu entropija + MATCH_COST_BITS katrai atbilstībai),
+     * atlikumam pēc CompressibilityProbe izlases; ja tas sasniedz maxRatio procentus no ievades, parsēšana
+     * tiek pārtraukta. Pirmā pārbaude - pēc 1/8 no ievades
+     * @param maxRatio Kompresijas attiecība procentos, kuru sasniedzot kompresija neatmaksājas (0 - nepārbaudīt)
+     * @return false, ja parsēšana pārtraukta - tad out nesatur visu ievadi
+     */
+    public static boolean compress(byte[] data, int historyStart, int start, int end, LevelConfig config,
+                                   LZ77TokenBuffer out, Workspace workspace, int maxRatio) {
+        out.clear();
+        if (data == null || start >= end) {
+            return true;
+        }
+        
+        if (config.parsing == Parsing.OPTIMAL) {
+            // Sākotnējā statistika no lazy parsēšanas, pēc tās - optimālā parsēšana tajā pašā buferī
+            if (!compressHeuristic(data, historyStart, start, end, config, true, out, workspace, maxRatio)) {
+                return false;
+            }
+            LZ77HuffmanCoder.Costs costs = LZ77HuffmanCoder.estimateCosts(out, WINDOW_SIZE, workspace.tables);
+            out.clear();
+            compressOptimal(data, historyStart, start, end, config, costs, out, workspace);
+            if (config.optimalPasses > 1) {
+                refineOptimal(data, historyStart, start, end, config, out, workspace);
+            }
+            return true;
+        }
+        return compressHeuristic(data, historyStart, start, end, config, config.parsing == Parsing.LAZY, out,
+                                 workspace, maxRatio);
+    }
+    
+    /**
+     * Izveido meklētāju un ievieto ķēdēs vēstures pozīcijas pirms start
+     */
+    private static HashChainMatchFinder primedFinder(byte[] data, int historyStart, int start, int end,
+                                                     LevelConfig config, Workspace workspace) {
+        HashChainMatchFinder finder = workspace.finder(config);
+        finder.reset(data, end);
+        for (int pos = Math.max(historyStart, start - WINDOW_SIZE); pos < start; pos++) {
+            finder.insert(pos);
+        }
+        return finder;
+    }
+    
+    /**
+     * Greedy vai lazy parsēšana
+     * @return false, ja parsēšana pārtraukta, jo novērtētā attiecība sasniedza maxRatio
+     */
+    private static boolean compressHeuristic(byte[] data, int historyStart, int start, int end,
+                                             LevelConfig config, boolean lazy, LZ77TokenBuffer result,
+                                             Workspace workspace, int maxRatio) {
+        HashChainMatchFinder finder = primedFinder(data, historyStart, start, end, config, workspace);
+        long nextCheck = Long.MAX_VALUE;
+        if (maxRatio > 0) {
+            Arrays.fill(workspace.literalHistogram, 0);
+            workspace.checkedTokens = 0;
+            workspace.checkedMatches = 0;
+            nextCheck = start + Math.max(EXIT_CHECK_INTERVAL, (end - start) / 8);
+        }
+        
+        int pos = start;
+        int nextInsert = start; // Visas pozīcijas pirms šīs jau ir hash ķēdēs
+        boolean havePending = false;
+        int matchLength = 0;
+        int matchOffset = 0;
+        
+        while (pos < end) {
+            if (!havePending) {
+                matchLength = finder.findMatch(pos, Math.min(LOOKAHEAD_SIZE, end - pos));
+                matchOffset = finder.getMatchOffset();
+            }
+            havePending = false;
+            
+            // Lazy: ja pos+1 dod garāku atbilstību, pos izvadām kā literāli
+            if (lazy && matchLength >= 3 && matchLength < config.niceLength && pos + 1 < end) {
+                while (nextInsert <= pos) {
+                    finder.insert(nextInsert++);
+                }
+                int nextLength = finder.findMatch(pos + 1, Math.min(LOOKAHEAD_SIZE, end - pos - 1));
+                if (nextLength > matchLength) {
+                    result.addLiteral(data[pos]);
+                    pos++;
+                    matchLength = nextLength;
+                    matchOffset = finder.getMatchOffset();
+                    havePending = true;
+                    continue;
+                }
+                // pos+2 atmaksājas tikai, ja garums atsver divus literāļus un garāku attālumu (kā zstd lazy2)
+                if (config.lazyLookahead > 1 && pos + 2 < end) {
+                    finder.insert(nextInsert++);
+                    int farLength = finder.findMatch(pos + 2, Math.min(LOOKAHEAD_SIZE, end - pos - 2));
+                    if (farLength * 4 - log2(finder.getMatchOffset()) > matchLength * 4 - log2(matchOffset) + 7) {
+                        result.addLiteral(data[pos]);
+                        result.addLiteral(data[pos + 1]);
+                        pos += 2;
+                        matchLength = farLength;
+                        matchOffset = finder.getMatchOffset();
+                        havePending = true;
+                        continue;
+                    }
+                }
+            }
+            
+            // Ja atradām atbilstību ar garumu >= 3, izmantojam to
+            if (matchLength >= 3) {
+                result.addMatch(matchOffset, matchLength);
+                pos += matchLength;
+            } else {
+                // Citādi izvadām tikai nākamo baitu
+                result.addLiteral(data[pos]);
+                pos++;
+            }
+            
+            // Ievietojam ķēdēs visas pozīcijas, ko pārklāj izvadītais tokens
+            while (nextInsert < pos) {
+                finder.insert(nextInsert++);
+            }
+            
+            if (pos >= nextCheck) {
+                if (projectedRatio(data, historyStart, start, pos, end, result, workspace) >= maxRatio) {
+                    return false;
+                }
+                nextCheck = pos + EXIT_CHECK_INTERVAL;
+            }
+        }
+        return true;
+    }
+    
+    private static int log2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+    
+    /**
+     * Novērtē bloka [start, end) izvades izmēru procentos, kad parsēts līdz pos: [start, pos) pēc tokeniem
+     * (jaunos pieskaita workspace statistikai), [pos, end) pēc izlases - trokšņains sākums neliek glabāt
+     * nekompresētu bloku, kura atlikums kompresējas
+     */
+    private static double projectedRatio(byte[] data, int historyStart, int start, int pos, int end,
+                                         LZ77TokenBuffer tokens, Workspace workspace) {
+        int[] histogram = workspace.literalHistogram;
+        for (int i = workspace.checkedTokens; i < tokens.size(); i++) {
+            if (tokens.isLiteral(i)) {
+                histogram[tokens.literal(i) & 0xFF]++;
+            } else {
+                workspace.checkedMatches++;
+            }
+        }
+        workspace.checkedTokens = tokens.size();
+        double bits = CompressibilityProbe.entropyBits(histogram, histogram.length)
+            + (double) workspace.checkedMatches * MATCH_COST_BITS;
+        if (pos < end) {
+            // Izlase neskaita atbilstību cenu; atlikumam to koriģē ar kļūdu apstrādātajā daļā
+            int[] head = workspace.probeTable();
+            double parsedRatio = bits / 8 / (pos - start) * 100;
+            double correction = parsedRatio / Math.max(1, CompressibilityProbe.estimateRatio(data, historyStart, start, pos, head));
+            correction = Math.max(1, Math.min(MAX_PROBE_CORRECTION, correction));
+            int tailRatio = CompressibilityProbe.estimateRatio(data, historyStart, pos, end, head);
+            bits += tailRatio * correction / 100 * (end - pos) * 8;
+        }
+        return bits / 8 / (end - start) * 100;
+    }
+    
+    /**
+     * Atkārto optimālo parsēšanu ar cenām no iepriekšējās; cenas mainās ar parsēšanu, tāpēc izmērs
+     * ne vienmēr samazinās - out paliek lētākā variants pēc precīza bloka izmēra
+     */
+    private static void refineOptimal(byte[] data, int historyStart, int start, int end, LevelConfig config,
+                                      LZ77TokenBuffer out, Workspace workspace) {
+        LZ77TokenBuffer candidate = workspace.candidateTokens();
+        long bestBits = LZ77HuffmanCoder.encodedBits(out, workspace.tables);
+        for (int pass = 1; pass < config.optimalPasses; pass++) {
+            LZ77HuffmanCoder.Costs costs = LZ77HuffmanCoder.estimateCosts(out, WINDOW_SIZE, workspace.tables);
+            candidate.clear();
+            compressOptimal(data, historyStart, start, end, config, costs, candidate, workspace);
+            long bits = LZ77HuffmanCoder.encodedBits(candidate, workspace.tables);
+            if (bits >= bestBits) {
+                return;
+            }
+            bestBits = bits;
+            out.copyFrom(candidate);
+        }
+    }
+    
+    /**
+     * Optimālā parsēšana: dinamiskā programmēšana pa pozīcijām, minimizējot
+     * kopējo bitu skaitu pēc entropijas kodētāja cenām
+     */
+    private static void compressOptimal(byte[] data, int historyStart, int start, int end,
+                                        LevelConfig config, LZ77HuffmanCoder.Costs costs,
+                                        LZ77TokenBuffer result, Workspace workspace) {
+        int n = end - start;
+        HashChainMatchFinder finder = primedFinder(data, historyStart, start, end, config, workspace);
+        
+        // price[i] - lētākā cena, lai iekodētu pirmos i simbolus no start; tokenam, kas beidzas
+        // pozīcijā i, glabājam sākumu, garumu un offset (garums 0 = literālis)
+        workspace.ensureParseCapacity(n + 1);
+        int[] price = workspace.price;
+        int[] chosenStart = workspace.chosenStart;
+        int[] chosenLength = workspace.chosenLength;
+        int[] chosenOffset = workspace.chosenOffset;
+        price[0] = 0;
+        Arrays.fill(price, 1, n + 1, Integer.MAX_VALUE);
+        
+        int[] matchLengths = workspace.matchLengths;
+        int[] matchOffsets = workspace.matchOffsets;
+        for (int pos = 0; pos < n; pos++) {
+            int base = price[pos];
+            
+            int literalPrice = base + costs.literal[data[start + pos] & 0xFF];
+            if (literalPrice < price[pos + 1]) {
+                price[pos + 1] = literalPrice;
+                chosenStart[pos + 1] = pos;
+                chosenLength[pos + 1] = 0;
+            }
+            
+            int count = finder.findMatches(start + pos, Math.min(LOOKAHEAD_SIZE, n - pos),
+                                           matchLengths, matchOffsets);
+            finder.insert(start + pos);
+            
+            // Katram garumam izmantojam mazāko offset, kas to sasniedz
+            int length = 3;
+            for (int m = 0; m < count; m++) {
+                int offset = matchOffsets[m];
+                int offsetPrice = base + costs.distance[offset];
+                for (; length <= matchLengths[m]; length++) {
+                    int target = pos + length;
+                    int matchPrice = offsetPrice + costs.length[length];
+                    if (matchPrice < price[target]) {
+                        price[target] = matchPrice;
+                        chosenStart[target] = pos;
+                        chosenLength[target] = length;
+                        chosenOffset[target] = offset;
+                    }
+                }
+            }
+        }
+        
+        // Atpakaļceļš no beigām: tokenu beigu pozīcijas, tad izvade uz priekšu
+        int tokenCount = 0;
+        for (int pos = n; pos > 0; pos = chosenStart[pos]) {
+            tokenCount++;
+        }
+        int[] ends = workspace.ends;
+        int index = tokenCount;
+        for (int pos = n; pos > 0; pos = chosenStart[pos]) {
+            ends[--index] = pos;
+        }
+        for (int k = 0; k < tokenCount; k++) {
+            int tokenEnd = ends[k];
+            if (chosenLength[tokenEnd] == 0) {
+                result.addLiteral(data[start + tokenEnd - 1]);
+            } else {
+                result.addMatch(chosenOffset[tokenEnd], chosenLength[tokenEnd]);
+            }
+        }
+    }
+    
+    /**
+     * Atkārtoti izmantojams meklētājs, entropijas tabulas un optimālās parsēšanas masīvi
+     * Ar vienu Workspace secīgi kompresējot daudzas mazas ievades, stabilā stāvoklī netiek
+     * izdalīta atmiņa; vienlaikus to drīkst lietot tikai viens pavediens
+     */
+    public static final class Workspace {
+        private HashChainMatchFinder finder;
+        private final LZ77HuffmanCoder.Tables tables = new LZ77HuffmanCoder.Tables();
+        private int[] price = new int[0];
+        private int[] chosenStart = new int[0];
+        private int[] chosenLength = new int[0];
+        private int[] chosenOffset = new int[0];
+        private int[] ends = new int[0];
+        private final int[] matchLengths = new int[LOOKAHEAD_SIZE];
+        private final int[] matchOffsets = new int[LOOKAHEAD_SIZE];
+        private final int[] literalHistogram = new int[256]; // Pārtraukšanas pārbaudēm
+        private int checkedTokens;
+        private long checkedMatches;
+        private int[] probeTable;  // CompressibilityProbe hash tabula
+        private LZ77TokenBuffer candidateTokens; // Atkārtotajām optimālās parsēšanas reizēm
+        
+        LZ77HuffmanCoder.Tables tables() {
+            return tables;
+        }
+        
+        int[] probeTable() {
+            if (probeTable == null) {
+                probeTable = new int[CompressibilityProbe.HASH_SIZE];
+            }
+            return probeTable;
+        }
+        
+        private LZ77TokenBuffer candidateTokens() {
+            if (candidateTokens == null) {
+                candidateTokens = new LZ77TokenBuffer();
+            }
+            return candidateTokens;
+        }
+        
+        private HashChainMatchFinder finder(LevelConfig config) {
+            if (finder == null) {
+                finder = new HashChainMatchFinder(WINDOW_SIZE, config.maxChainDepth, config.niceLength);
+            } else {
+                finder.setSearchLimits(config.maxChainDepth, config.niceLength);
+            }
+            return finder;
+        }
+        
+        private void ensureParseCapacity(int capacity) {
+            if (price.length < capacity) {
+                price = new int[capacity];
+                chosenStart = new int[capacity];
+                chosenLength = new int[capacity];
+                chosenOffset = new int[capacity];
+                ends = new int[capacity];
+            }
+        }
+    }
+    
+    /**
+     * Sākotnējā pilnā loga skenēšana - atstāta kā atskaites punkts LZ77Benchmark
+     * @param input Ievades baiti
+     * @param result Izvades buferis, tiek iztukšots pirms rakstīšanas
+     */
+    static void compressBruteForce(byte[] input, LZ77TokenBuffer result) {
+        result.clear();
+        if (input == null || input.length == 0) {
+            return;
         }
         
-        List<LZ77Token> result = new ArrayList<>();
         int pos = 0;
         
-        while (pos < input.length()) {
+        while (pos < input.length) {
             int matchLength = 0;
             int matchOffset = 0;
             
             // Meklējam garāko atbilstību sliding window
             int searchStart = Math.max(0, pos - WINDOW_SIZE);
-            int maxLength = Math.min(LOOKAHEAD_SIZE, input.length() - pos);
+            int maxLength = Math.min(LOOKAHEAD_SIZE, input.length - pos);
             
             for (int i = searchStart; i < pos; i++) {
                 int len = 0;
                 while (len < maxLength && 
-                       pos + len < input.length() && 
+                       pos + len < input.length && 
                        i + len < pos && 
-                       input.charAt(i + len) == input.charAt(pos + len)) {
+                       input[i + len] == input[pos + len]) {
                     len++;
                 }
                 
@@ -46,24 +514,19 @@ public class LZ77Compression {
             }
             
             // Ja atradām atbilstību ar garumu >= 3, izmantojam to
-            // Minimum 3, jo (offset, length, char) = 3 ints, kas ir 12 baiti, bet 3 chars = 6 baiti (UTF-8)
             if (matchLength >= 3) {
-                char nextChar = (pos + matchLength < input.length()) ? 
-                    input.charAt(pos + matchLength) : '\0';
-                result.add(new LZ77Token(matchOffset, matchLength, nextChar));
-                pos += matchLength + 1;
+                result.addMatch(matchOffset, matchLength);
+                pos += matchLength;
             } else {
-                // Citādi izvadām tikai nākamo rakstzīmi
-                result.add(new LZ77Token(0, 0, input.charAt(pos)));
+                // Citādi izvadām tikai nākamo baitu
+                result.addLiteral(input[pos]);
                 pos++;
             }
         }
-        
-        return result;
     }
     
     /**
-     * Dekompresē LZ77 datus
+     * Dekompresē vecā formāta (char) LZ77 datus
      * @param tokens Kompresēti tokeni
      * @return Dekompresēts teksts
      */
@@ -92,8 +555,70 @@ public class LZ77Compression {
         return result.toString();
     }
     
+    /**
+     * Dekompresē baitu LZ77 datus (gan LZSS tokenus, gan vecos tripletus)
+     * @param tokens Kompresēti tokeni (nextChar 0-255 vai NO_NEXT_BYTE)
+     * @return Dekompresēti baiti
+     */
+    public static byte[] decompressToBytes(List<LZ77Token> tokens) {
+        // Izvades izmērs ir zināms iepriekš - nav jāaudzē buferis
+        int size = 0;
+        for (LZ77Token token : tokens) {
+            size += token.length + (token.nextChar != NO_NEXT_BYTE ? 1 : 0);
+        }
+        
+        byte[] result = new byte[size];
+        int pos = 0;
+        
+        for (LZ77Token token : tokens) {
+            if (token.length > 0) {
+                // Atbilstība - kopējam pa baitam, jo avots var pārklāties ar mērķi
+                int startPos = pos - token.offset;
+                if (startPos < 0) {
+                    throw new IllegalArgumentException("Nederīgs LZ77 offset: " + token.offset);
+                }
+                for (int i = 0; i < token.length; i++) {
+                    result[pos++] = result[startPos + i];
+                }
+            }
+            if (token.nextChar != NO_NEXT_BYTE) {
+                result[pos++] = (byte) token.nextChar;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Dekompresē tokenus no primitīvā bufera
+     * @param tokens Kompresēti tokeni
+     * @return Dekompresēti baiti
+     */
+    public static byte[] decompressToBytes(LZ77TokenBuffer tokens) {
+        byte[] result = new byte[tokens.decodedLength()];
+        int pos = 0;
+        
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isLiteral(i)) {
+                result[pos++] = tokens.literal(i);
+                continue;
+            }
+            int length = tokens.length(i);
+            int startPos = pos - tokens.offset(i);
+            if (startPos < 0) {
+                throw new IllegalArgumentException("Nederīgs LZ77 offset: " + tokens.offset(i));
+            }
+            for (int j = 0; j < length; j++) {
+                result[pos++] = result[startPos + j];
+            }
+        }
+        
+        return result;
+    }
+    
     /**
      * LZ77 token klase
+     * Literālim length = 0 un baits ir nextChar; LZSS atbilstībai nextChar = NO_NEXT_BYTE
      */
     public static class LZ77Token {
         public final int offset;
@@ -105,6 +630,25 @@ public class LZ77Compression {
             this.length = length;
             this.nextChar = nextChar;
         }
+        
+        /**
+         * @param value Literāļa baits (arī 0)
+         */
+        public static LZ77Token literal(byte value) {
+            return new LZ77Token(0, 0, (char) (value & 0xFF));
+        }
+        
+        /**
+         * @param offset Attālums atpakaļ
+         * @param length Atbilstības garums (vismaz 3)
+         */
+        public static LZ77Token match(int offset, int length) {
+            return new LZ77Token(offset, length, NO_NEXT_BYTE);
+        }
+        
+        public boolean isLiteral() {
+            return length == 0;
+        }
     }
 }
 
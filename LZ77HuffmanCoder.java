@@ -0,0 +1,441 @@
+/**
+ * LZ77 tokenu entropijas kodēšana ar diviem Huffman alfabētiem (kā Deflate)
+ * Literāļi un garumi: 0-255 literāļi, 257-285 garumu grupas; attālumi: 0-29 grupas
+ * Grupas vērtību precizē nekodēti papildu biti, tāpēc alfabēti paliek mazi
+ */
+public class LZ77HuffmanCoder {
+
+    private static final int LITERAL_COUNT = 256;
+    private static final int LENGTH_CODE_BASE = 257; // 256 rezervēts (kā Deflate bloka beigas)
+    private static final int LITLEN_ALPHABET = 286;
+    private static final int DISTANCE_ALPHABET = 30;
+    private static final int MAX_LENGTH = 258;
+    private static final int MAX_DISTANCE = 32768;
+
+    private static final int[] LENGTH_BASE = {
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+        35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258
+    };
+    private static final int[] LENGTH_EXTRA = {
+        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
+        3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0
+    };
+    private static final int[] DISTANCE_BASE = {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
+        257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577
+    };
+    private static final int[] DISTANCE_EXTRA = {
+        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6,
+        7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13
+    };
+
+    // Garums/attālums -> grupas numurs
+    private static final byte[] LENGTH_CODE = new byte[MAX_LENGTH + 1];
+    private static final byte[] DISTANCE_CODE = new byte[MAX_DISTANCE + 1];
+
+    static {
+        for (int code = 0; code < LENGTH_BASE.length; code++) {
+            int end = code + 1 < LENGTH_BASE.length ? LENGTH_BASE[code + 1] : MAX_LENGTH + 1;
+            for (int length = LENGTH_BASE[code]; length < end && length <= MAX_LENGTH; length++) {
+                LENGTH_CODE[length] = (byte) code;
+            }
+        }
+        for (int code = 0; code < DISTANCE_BASE.length; code++) {
+            int end = code + 1 < DISTANCE_BASE.length ? DISTANCE_BASE[code + 1] : MAX_DISTANCE + 1;
+            for (int distance = DISTANCE_BASE[code]; distance < end; distance++) {
+                DISTANCE_CODE[distance] = (byte) code;
+            }
+        }
+    }
+
+    /**
+     * Kodē LZ77 tokenus: abu alfabētu kodu garumi, tad simboli ar papildu bitiem
+     * @param tokens LZ77 tokenu buferis
+     * @param out Bitu rakstītājs
+     */
+    public static void encode(LZ77TokenBuffer tokens, BitWriter out) {
+        encode(tokens, out, new Tables());
+    }
+
+    /**
+     * Kodē LZ77 tokenus, histogrammām un kodu tabulām izmantojot tables masīvus
+     * @param tokens LZ77 tokenu buferis
+     * @param out Bitu rakstītājs
+     * @param tables Atkārtoti izmantojamās tabulas
+     */
+    public static void encode(LZ77TokenBuffer tokens, BitWriter out, Tables tables) {
+        tables.build(tokens);
+        byte[] litlenLengths = tables.litlenLengths;
+        byte[] distanceLengths = tables.distanceLengths;
+        int[] litlenCodes = tables.litlenCodes;
+        int[] distanceCodes = tables.distanceCodes;
+        HuffmanCoding.canonicalCodes(litlenLengths, LITLEN_ALPHABET, litlenCodes, tables.workspace);
+        HuffmanCoding.canonicalCodes(distanceLengths, DISTANCE_ALPHABET, distanceCodes, tables.workspace);
+
+        HuffmanCoding.writeCodeLengths(out, litlenLengths, LITLEN_ALPHABET, tables.workspace);
+        HuffmanCoding.writeCodeLengths(out, distanceLengths, DISTANCE_ALPHABET, tables.workspace);
+        writeSymbols(tokens, out, litlenCodes, litlenLengths, distanceCodes, distanceLengths);
+    }
+
+    /**
+     * Kodē LZ77 tokenus ar dinamiskajām tabulām, ko cheapestTable tiem pašiem tokeniem jau uzbūvēja:
+     * histogrammas un kodu garumi netiek pārrēķināti, galvene tiek nokopēta no cheapestTable aprēķina
+     * @param tokens Tie paši tokeni, kas nodoti cheapestTable
+     * @param out Bitu rakstītājs
+     * @param tables Tabulas pēc cheapestTable izsaukuma
+     */
+    public static void encodePrepared(LZ77TokenBuffer tokens, BitWriter out, Tables tables) {
+        byte[] litlenLengths = tables.litlenLengths;
+        byte[] distanceLengths = tables.distanceLengths;
+        int[] litlenCodes = tables.litlenCodes;
+        int[] distanceCodes = tables.distanceCodes;
+        HuffmanCoding.canonicalCodes(litlenLengths, LITLEN_ALPHABET, litlenCodes, tables.workspace);
+        HuffmanCoding.canonicalCodes(distanceLengths, DISTANCE_ALPHABET, distanceCodes, tables.workspace);
+
+        copyHeader(tables.header, out);
+        writeSymbols(tokens, out, litlenCodes, litlenLengths, distanceCodes, distanceLengths);
+    }
+
+    /**
+     * Kodē LZ77 tokenus ar statisko tabulu - kodu garumi netiek rakstīti
+     * @param tokens LZ77 tokenu buferis; visiem simboliem jābūt tabulā (skatīt cheapestTable)
+     * @param out Bitu rakstītājs
+     * @param table Statiskā tabula
+     */
+    public static void encode(LZ77TokenBuffer tokens, BitWriter out, StaticHuffmanTable table) {
+        writeSymbols(tokens, out, table.litlenCodes, table.litlenLengths, table.distanceCodes, table.distanceLengths);
+    }
+
+    /**
+     * Salīdzina dinamisko tabulu bloka izmēru (galvene + simboli) ar katru iebūvēto statisko tabulu;
+     * papildu biti visos variantos ir vienādi, tāpēc netiek skaitīti
+     * @param tokens LZ77 tokenu buferis
+     * @param tables Atkārtoti izmantojamās tabulas
+     * @param staticHeaderBits Par cik bitiem statiskās tabulas bloka galvene ir garāka (tabulas ID)
+     * @return Lētākā statiskā tabula vai null, ja dinamiskās tabulas ir lētākas - tad tokenus kodē encodePrepared
+     */
+    public static StaticHuffmanTable cheapestTable(LZ77TokenBuffer tokens, Tables tables, int staticHeaderBits) {
+        tables.build(tokens);
+        long bestBits = headerBits(tables)
+            + symbolBits(tables, tables.litlenLengths, tables.distanceLengths) - staticHeaderBits;
+
+        StaticHuffmanTable best = null;
+        for (StaticHuffmanTable table : StaticHuffmanTable.BUILT_IN) {
+            long bits = symbolBits(tables, table.litlenLengths, table.distanceLengths);
+            if (bits < bestBits) {
+                bestBits = bits;
+                best = table;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Bloka izmērs bitos ar lētākajām tabulām (dinamiskām ar galveni vai iebūvētām statiskām):
+     * simbolu kodi un papildu biti
+     * @param tokens LZ77 tokenu buferis
+     * @param tables Atkārtoti izmantojamās tabulas
+     */
+    static long encodedBits(LZ77TokenBuffer tokens, Tables tables) {
+        tables.build(tokens);
+        long bits = headerBits(tables) + symbolBits(tables, tables.litlenLengths, tables.distanceLengths);
+        for (StaticHuffmanTable table : StaticHuffmanTable.BUILT_IN) {
+            bits = Math.min(bits, symbolBits(tables, table.litlenLengths, table.distanceLengths));
+        }
+        for (int code = 0; code < LENGTH_BASE.length; code++) {
+            bits += (long) tables.litlenHistogram[LENGTH_CODE_BASE + code] * LENGTH_EXTRA[code];
+        }
+        for (int code = 0; code < DISTANCE_ALPHABET; code++) {
+            bits += (long) tables.distanceHistogram[code] * DISTANCE_EXTRA[code];
+        }
+        return bits;
+    }
+
+    /**
+     * @return Abu alfabētu kodu garumu galvenes bitu skaits tables pašreizējām tabulām
+     */
+    private static long headerBits(Tables tables) {
+        BitWriter header = tables.header;
+        header.rewind(0);
+        HuffmanCoding.writeCodeLengths(header, tables.litlenLengths, LITLEN_ALPHABET, tables.workspace);
+        HuffmanCoding.writeCodeLengths(header, tables.distanceLengths, DISTANCE_ALPHABET, tables.workspace);
+        return header.bitPosition();
+    }
+
+    /**
+     * Pārraksta headerBits ierakstīto galveni uz out (bez izlīdzināšanas)
+     */
+    private static void copyHeader(BitWriter header, BitWriter out) {
+        long bits = header.bitPosition();
+        header.finish();
+        byte[] bytes = header.buffer();
+        int i = 0;
+        for (; bits >= 8; bits -= 8) {
+            out.writeBits(bytes[i++] & 0xFF, 8);
+        }
+        if (bits > 0) {
+            out.writeBits((bytes[i] & 0xFF) >>> (8 - bits), (int) bits);
+        }
+    }
+
+    /**
+     * @return Simbolu kodu bitu skaits vai Long.MAX_VALUE, ja kāds izmantotais simbols tabulā nav kodējams
+     */
+    private static long symbolBits(Tables tables, byte[] litlenLengths, byte[] distanceLengths) {
+        long bits = 0;
+        for (int symbol = 0; symbol < LITLEN_ALPHABET; symbol++) {
+            int count = tables.litlenHistogram[symbol];
+            if (count > 0) {
+                if (litlenLengths[symbol] == 0) {
+                    return Long.MAX_VALUE;
+                }
+                bits += (long) count * litlenLengths[symbol];
+            }
+        }
+        for (int symbol = 0; symbol < DISTANCE_ALPHABET; symbol++) {
+            int count = tables.distanceHistogram[symbol];
+            if (count > 0) {
+                if (distanceLengths[symbol] == 0) {
+                    return Long.MAX_VALUE;
+                }
+                bits += (long) count * distanceLengths[symbol];
+            }
+        }
+        return bits;
+    }
+
+    private static void writeSymbols(LZ77TokenBuffer tokens, BitWriter out, int[] litlenCodes, byte[] litlenLengths,
+                                     int[] distanceCodes, byte[] distanceLengths) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isLiteral(i)) {
+                int literal = tokens.literal(i) & 0xFF;
+                out.writeBits(litlenCodes[literal], litlenLengths[literal]);
+                continue;
+            }
+            int length = tokens.length(i);
+            int lengthCode = LENGTH_CODE[length];
+            int symbol = LENGTH_CODE_BASE + lengthCode;
+            out.writeBits(litlenCodes[symbol], litlenLengths[symbol]);
+            out.writeBits(length - LENGTH_BASE[lengthCode], LENGTH_EXTRA[lengthCode]);
+
+            int offset = tokens.offset(i);
+            int distanceCode = DISTANCE_CODE[offset];
+            out.writeBits(distanceCodes[distanceCode], distanceLengths[distanceCode]);
+            out.writeBits(offset - DISTANCE_BASE[distanceCode], DISTANCE_EXTRA[distanceCode]);
+        }
+    }
+
+    /**
+     * Dekodē simbolus tieši izvades masīvā, līdz tas ir pilns
+     * @param in Bitu lasītājs
+     * @param output Izvades buferis ar precīzu oriģinālo izmēru
+     */
+    public static void decode(BitReader in, byte[] output) {
+        decode(in, output, 0, 0, output.length);
+    }
+
+    /**
+     * Dekodē output[start, end); atbilstības drīkst atsaukties līdz historyStart
+     * @param in Bitu lasītājs
+     * @param output Izvades buferis, output[historyStart, start) jau satur vēsturi
+     * @param historyStart Agrākā pozīcija, uz kuru drīkst atsaukties
+     * @param start Pirmā dekodējamā baita pozīcija
+     * @param end Pozīcija aiz pēdējā dekodējamā baita
+     */
+    public static void decode(BitReader in, byte[] output, int historyStart, int start, int end) {
+        decode(in, output, historyStart, start, end, new HuffmanCoding.DecodingTables());
+    }
+
+    /**
+     * Dekodē output[start, end), abu alfabētu tabulas pārbūvējot tables masīvos
+     * @param tables Atkārtoti izmantojamās dekodēšanas tabulas
+     */
+    public static void decode(BitReader in, byte[] output, int historyStart, int start, int end,
+                              HuffmanCoding.DecodingTables tables) {
+        decode(in, null, output, historyStart, start, end, tables);
+    }
+
+    /**
+     * Dekodē output[start, end), kur pirms historyStart atrodas vārdnīca; atbilstības, kas sniedzas
+     * pirms historyStart, tiek nolasītas tieši no dictionary, bez kopēšanas pagaidu buferī
+     * @param dictionary Vārdnīcas saturs vai null
+     * @param tables Atkārtoti izmantojamās dekodēšanas tabulas
+     */
+    static void decode(BitReader in, byte[] dictionary, byte[] output, int historyStart, int start, int end,
+                       HuffmanCoding.DecodingTables tables) {
+        int litlenCount = tables.primary.read(in, tables.codeLengths);
+        int distanceCount = tables.distance.read(in, tables.codeLengths);
+        if (litlenCount > LITLEN_ALPHABET || distanceCount > DISTANCE_ALPHABET) {
+            throw new IllegalArgumentException("Nederīgs alfabēta izmērs");
+        }
+        decodeSymbols(in, tables.primary, tables.distance, dictionary, output, historyStart, start, end);
+    }
+
+    /**
+     * Dekodē output[start, end) ar statisko tabulu; dekodēšanas tabulas jau ir gatavas
+     * @param in Bitu lasītājs
+     * @param table Statiskā tabula no bloka galvenes
+     * @param output Izvades buferis, output[historyStart, start) jau satur vēsturi
+     * @param historyStart Agrākā pozīcija, uz kuru drīkst atsaukties
+     * @param start Pirmā dekodējamā baita pozīcija
+     * @param end Pozīcija aiz pēdējā dekodējamā baita
+     */
+    public static void decode(BitReader in, StaticHuffmanTable table, byte[] output,
+                              int historyStart, int start, int end) {
+        decode(in, table, null, output, historyStart, start, end);
+    }
+
+    /**
+     * Dekodē output[start, end) ar statisko tabulu, kur pirms historyStart atrodas vārdnīca
+     * @param dictionary Vārdnīcas saturs vai null
+     */
+    static void decode(BitReader in, StaticHuffmanTable table, byte[] dictionary, byte[] output,
+                       int historyStart, int start, int end) {
+        decodeSymbols(in, table.litlenTable, table.distanceTable, dictionary, output, historyStart, start, end);
+    }
+
+    private static void decodeSymbols(BitReader in, HuffmanCoding.DecodingTable litlenTable,
+                                      HuffmanCoding.DecodingTable distanceTable, byte[] dictionary,
+                                      byte[] output, int historyStart, int start, int end) {
+        int dictionaryLength = dictionary == null ? 0 : dictionary.length;
+        int pos = start;
+        while (pos < end) {
+            int symbol = litlenTable.decodeSymbol(in);
+            if (symbol < LITERAL_COUNT) {
+                output[pos++] = (byte) symbol;
+                continue;
+            }
+
+            int lengthCode = symbol - LENGTH_CODE_BASE;
+            if (lengthCode < 0) {
+                throw new IllegalArgumentException("Nederīgs garuma simbols: " + symbol);
+            }
+            int length = LENGTH_BASE[lengthCode] + in.readBits(LENGTH_EXTRA[lengthCode]);
+            int distanceCode = distanceTable.decodeSymbol(in);
+            int distance = DISTANCE_BASE[distanceCode] + in.readBits(DISTANCE_EXTRA[distanceCode]);
+            if (distance > pos - historyStart + dictionaryLength || length > end - pos) {
+                throw new IllegalArgumentException("Nederīga atbilstība: " + distance + "/" + length);
+            }
+
+            int from = pos - distance;
+            if (from < historyStart) {
+                // Atbilstības sākums ir vārdnīcā - to kopējam no turienes, atlikumu no output
+                int back = historyStart - from;
+                int fromDictionary = Math.min(back, length);
+                System.arraycopy(dictionary, dictionaryLength - back, output, pos, fromDictionary);
+                pos += fromDictionary;
+                length -= fromDictionary;
+                from = historyStart;
+            }
+
+            // Atbilstība - pārklāšanās gadījumā kopējam pa baitam
+            if (distance >= length) {
+                System.arraycopy(output, from, output, pos, length);
+                pos += length;
+            } else {
+                for (int i = 0; i < length; i++) {
+                    output[pos++] = output[from + i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Aptuvenās bitu cenas optimālajai parsēšanai, ieskaitot papildu bitus
+     * @param tokens Sākotnējās parsēšanas tokeni statistikai
+     * @param maxDistance Lielākais iespējamais attālums
+     */
+    public static Costs estimateCosts(LZ77TokenBuffer tokens, int maxDistance) {
+        return estimateCosts(tokens, maxDistance, new Tables());
+    }
+
+    /**
+     * Aprēķina cenas tables iekšējā Costs objektā (tas tiek pārrakstīts nākamajā izsaukumā)
+     * @param tokens Sākotnējās parsēšanas tokeni statistikai
+     * @param maxDistance Lielākais iespējamais attālums
+     * @param tables Atkārtoti izmantojamās tabulas
+     */
+    public static Costs estimateCosts(LZ77TokenBuffer tokens, int maxDistance, Tables tables) {
+        tables.build(tokens);
+        byte[] litlenLengths = tables.litlenLengths;
+        byte[] distanceLengths = tables.distanceLengths;
+        if (tables.costs == null || tables.costs.distance.length < maxDistance + 1) {
+            tables.costs = new Costs(new int[LITERAL_COUNT], new int[MAX_LENGTH + 1], new int[maxDistance + 1]);
+        }
+        Costs costs = tables.costs;
+
+        // Neredzētie simboli pagarinātu koku - cena nedaudz virs garākā koda
+        for (int b = 0; b < LITERAL_COUNT; b++) {
+            costs.literal[b] = symbolCost(litlenLengths, b);
+        }
+        for (int len = LENGTH_BASE[0]; len <= MAX_LENGTH; len++) {
+            int code = LENGTH_CODE[len];
+            costs.length[len] = symbolCost(litlenLengths, LENGTH_CODE_BASE + code) + LENGTH_EXTRA[code];
+        }
+        for (int d = 1; d <= maxDistance; d++) {
+            int code = DISTANCE_CODE[d];
+            costs.distance[d] = symbolCost(distanceLengths, code) + DISTANCE_EXTRA[code];
+        }
+        return costs;
+    }
+
+    private static void countSymbols(LZ77TokenBuffer tokens,
+                                     int[] litlenHistogram, int[] distanceHistogram) {
+        java.util.Arrays.fill(litlenHistogram, 0);
+        java.util.Arrays.fill(distanceHistogram, 0);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isLiteral(i)) {
+                litlenHistogram[tokens.literal(i) & 0xFF]++;
+            } else {
+                litlenHistogram[LENGTH_CODE_BASE + LENGTH_CODE[tokens.length(i)]]++;
+                distanceHistogram[DISTANCE_CODE[tokens.offset(i)]]++;
+            }
+        }
+    }
+
+    private static int symbolCost(byte[] lengths, int symbol) {
+        return lengths[symbol] > 0 ? lengths[symbol] : HuffmanCoding.MAX_CODE_LENGTH;
+    }
+
+    /**
+     * Bitu cenas: literālim, atbilstības garumam un attālumam
+     */
+    public static class Costs {
+        public final int[] literal;
+        public final int[] length;
+        public final int[] distance;
+
+        Costs(int[] literal, int[] length, int[] distance) {
+            this.literal = literal;
+            this.length = length;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Atkārtoti izmantojamas kodētāja tabulas: histogrammas, kodu garumi, kodi un cenas
+     * Viens objekts vienlaikus jālieto vienā pavedienā
+     */
+    public static final class Tables {
+        private final int[] litlenHistogram = new int[LITLEN_ALPHABET];
+        private final int[] distanceHistogram = new int[DISTANCE_ALPHABET];
+        private final byte[] litlenLengths = new byte[LITLEN_ALPHABET];
+        private final byte[] distanceLengths = new byte[DISTANCE_ALPHABET];
+        private final int[] litlenCodes = new int[LITLEN_ALPHABET];
+        private final int[] distanceCodes = new int[DISTANCE_ALPHABET];
+        private final HuffmanCoding.Workspace workspace = new HuffmanCoding.Workspace();
+        private final BitWriter header = new BitWriter(512); // Dinamisko tabulu galvenes izmēram
+        private Costs costs;
+
+        /**
+         * Saskaita tokenu simbolus un aprēķina abu alfabētu kodu garumus
+         */
+        private void build(LZ77TokenBuffer tokens) {
+            countSymbols(tokens, litlenHistogram, distanceHistogram);
+            HuffmanCoding.codeLengths(litlenHistogram, LITLEN_ALPHABET, HuffmanCoding.MAX_CODE_LENGTH,
+                                      litlenLengths, workspace);
+            HuffmanCoding.codeLengths(distanceHistogram, DISTANCE_ALPHABET, HuffmanCoding.MAX_CODE_LENGTH,
+                                      distanceLengths, workspace);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.*;
+
+/**
+ * LZ77 tokenu buferis no paralēliem primitīvu masīviem (bez objekta katram tokenam)
+ * Literālim garums ir 0 un baits glabājas literals masīvā; atbilstībai - offset un garums
+ * Buferi var atkārtoti izmantot ar clear(), masīvi tiek paplašināti tikai pēc vajadzības
+ */
+public class LZ77TokenBuffer {
+
+    private int[] offsets;
+    private short[] lengths;
+    private byte[] literals;
+    private int size;
+
+    public LZ77TokenBuffer() {
+        this(1024);
+    }
+
+    /**
+     * @param initialCapacity Sākotnējais tokenu skaits
+     */
+    public LZ77TokenBuffer(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        offsets = new int[capacity];
+        lengths = new short[capacity];
+        literals = new byte[capacity];
+    }
+
+    /**
+     * Iztukšo buferi, saglabājot masīvus
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addLiteral(byte value) {
+        if (size == lengths.length) {
+            grow();
+        }
+        lengths[size] = 0;
+        literals[size] = value;
+        size++;
+    }
+
+    /**
+     * @param offset Attālums atpakaļ
+     * @param length Atbilstības garums (vismaz 3)
+     */
+    public void addMatch(int offset, int length) {
+        if (size == lengths.length) {
+            grow();
+        }
+        offsets[size] = offset;
+        lengths[size] = (short) length;
+        size++;
+    }
+
+    public boolean isLiteral(int index) {
+        return lengths[index] == 0;
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public byte literal(int index) {
+        return literals[index];
+    }
+
+    /**
+     * Aizstāj bufera saturu ar other tokeniem
+     */
+    public void copyFrom(LZ77TokenBuffer other) {
+        while (lengths.length < other.size) {
+            grow();
+        }
+        System.arraycopy(other.offsets, 0, offsets, 0, other.size);
+        System.arraycopy(other.lengths, 0, lengths, 0, other.size);
+        System.arraycopy(other.literals, 0, literals, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * @return Oriģinālo baitu skaits, ko tokeni atjauno
+     */
+    public int decodedLength() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += lengths[i] == 0 ? 1 : lengths[i];
+        }
+        return total;
+    }
+
+    /**
+     * Konvertē uz LZ77Token sarakstu (saderībai ar veco API)
+     */
+    public List<LZ77Compression.LZ77Token> toTokens() {
+        List<LZ77Compression.LZ77Token> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(lengths[i] == 0
+                ? LZ77Compression.LZ77Token.literal(literals[i])
+                : LZ77Compression.LZ77Token.match(offsets[i], lengths[i]));
+        }
+        return result;
+    }
+
+    private void grow() {
+        int capacity = lengths.length * 2;
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        literals = Arrays.copyOf(literals, capacity);
+    }
+}
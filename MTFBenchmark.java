@@ -0,0 +1,72 @@
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * MoveToFront baitu transformācijas benchmark (MB/s) uz TestFiles korpusa
+ * Katram failam - neapstrādāti baiti (MTF_RLE stratēģija, vidējais rangs ~15) un BWT izvade
+ * (BWT stratēģija, lielākoties rangi 0-1)
+ */
+public class MTFBenchmark {
+
+    private static final String[] TEST_FILES = {
+        "TestFiles/File1.html",
+        "TestFiles/File2.html",
+        "TestFiles/File3.html",
+        "TestFiles/File4.html"
+    };
+
+    private static final int WARMUP_CALLS = 2000;  // Pietiekami, lai metodes kompilētu C2, ne tikai OSR
+    private static final int WARMUP_LENGTH = 4096;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("════════════════════════════════════════════════════════════════════════════════════");
+        System.out.println("Move-to-Front Benchmark (transform / inverseTransform, labākais no " + RUNS + ")");
+        System.out.println("════════════════════════════════════════════════════════════════════════════════════\n");
+
+        for (String testFile : TEST_FILES) {
+            byte[] input = Files.readAllBytes(Paths.get(testFile));
+            byte[] transformed = new byte[input.length];
+            BurrowsWheelerTransform.transform(input, 0, input.length, transformed, 0);
+            System.out.println(testFile + " (" + input.length + " bytes)");
+            System.out.println("─────────────────────────────────────────────────────────────────────────────────");
+            printRow("neapstrādāti baiti", input);
+            printRow("BWT izvade", transformed);
+            System.out.println();
+        }
+    }
+
+    private static void printRow(String name, byte[] input) {
+        byte[] ranks = new byte[input.length];
+        byte[] restored = new byte[input.length];
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            int length = Math.min(WARMUP_LENGTH, input.length);
+            MoveToFront.transform(input, 0, length, ranks, 0);
+            MoveToFront.inverseTransform(ranks, 0, length, restored, 0);
+        }
+
+        long forward = Long.MAX_VALUE;
+        long inverse = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            MoveToFront.transform(input, 0, input.length, ranks, 0);
+            forward = Math.min(forward, System.nanoTime() - start);
+            start = System.nanoTime();
+            MoveToFront.inverseTransform(ranks, 0, ranks.length, restored, 0);
+            inverse = Math.min(inverse, System.nanoTime() - start);
+        }
+
+        long rankSum = 0;
+        for (byte rank : ranks) {
+            rankSum += rank & 0xFF;
+        }
+        System.out.printf("  %-20s | vidējais rangs %5.1f | transform %7.1f MB/s | inverse %7.1f MB/s | %s%n",
+                          name, (double) rankSum / input.length, megabytesPerSecond(input.length, forward),
+                          megabytesPerSecond(input.length, inverse), Arrays.equals(restored, input) ? "✓" : "✗");
+    }
+
+    private static double megabytesPerSecond(int bytes, long nanos) {
+        return bytes * 1e3 / nanos;
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * Bloka kodēšana ar MTF, nuļļu virkņu RLE un vienu Huffman alfabētu (kā bzip2 aizmugure)
+ * Simboli: RUN_A/RUN_B (0, 1) - nuļļu virknes cipari, 2-256 - MTF rangs 1-255
+ * Piemērota datiem ar garām vienādu baitu virknēm vai lokāli mazu alfabētu (piemēram, pēc BWT)
+ * encodeBurrowsWheeler pirms tam piemēro BWT pa BWT_BLOCK_SIZE gabaliem
+ */
+public class MTFHuffmanCoder {
+
+    private static final int ALPHABET_SIZE = 257;
+    static final int BWT_BLOCK_SIZE = 4 * 1024 * 1024; // Formāta konstante: BWT gabala garums (arī CompressionPipeline.BWT)
+
+    /**
+     * Kodē data[start, end)
+     * @param data Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param out Bitu rakstītājs
+     */
+    public static void encode(byte[] data, int start, int end, BitWriter out) {
+        encode(data, start, end, out, new Workspace());
+    }
+
+    /**
+     * Kodē data[start, end), starprezultātiem izmantojot workspace masīvus
+     * @param workspace Atkārtoti izmantojamie masīvi
+     */
+    public static void encode(byte[] data, int start, int end, BitWriter out, Workspace workspace) {
+        int length = end - start;
+        workspace.ensureCapacity(length);
+        byte[] ranks = workspace.ranks;
+        int[] symbols = workspace.symbols;
+        MoveToFront.transform(data, start, end, ranks, 0);
+        int count = RunLengthEncoding.encodeZeroRuns(ranks, 0, length, symbols);
+
+        int[] histogram = workspace.histogram;
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < count; i++) {
+            histogram[symbols[i]]++;
+        }
+        byte[] lengths = workspace.lengths;
+        int[] codes = workspace.codes;
+        HuffmanCoding.codeLengths(histogram, ALPHABET_SIZE, HuffmanCoding.MAX_CODE_LENGTH, lengths, workspace.huffman);
+        HuffmanCoding.canonicalCodes(lengths, ALPHABET_SIZE, codes, workspace.huffman);
+        HuffmanCoding.writeCodeLengths(out, lengths, ALPHABET_SIZE, workspace.huffman);
+
+        for (int i = 0; i < count; i++) {
+            int symbol = symbols[i];
+            out.writeBits(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    /**
+     * Dekodē output[start, end): vispirms rangi tieši izvades masīvā, tad inversais MTF uz vietas
+     * @param in Bitu lasītājs
+     * @param output Izvades buferis
+     * @param start Pirmā dekodējamā baita pozīcija
+     * @param end Pozīcija aiz pēdējā dekodējamā baita
+     */
+    public static void decode(BitReader in, byte[] output, int start, int end) {
+        decode(in, output, start, end, new HuffmanCoding.DecodingTables());
+    }
+
+    /**
+     * Dekodē output[start, end), simbolu tabulu pārbūvējot tables masīvos
+     * @param tables Atkārtoti izmantojamās dekodēšanas tabulas
+     */
+    public static void decode(BitReader in, byte[] output, int start, int end, HuffmanCoding.DecodingTables tables) {
+        HuffmanCoding.DecodingTable table = tables.primary;
+        int alphabetSize = table.read(in, tables.codeLengths);
+        if (alphabetSize > ALPHABET_SIZE) {
+            throw new IllegalArgumentException("Nederīgs alfabēta izmērs: " + alphabetSize);
+        }
+        if (start == end) {
+            return;
+        }
+
+        int pos = start;
+        long run = 0;
+        long weight = 1;
+        while (pos + run < end) {
+            int symbol = table.decodeSymbol(in);
+            if (symbol <= RunLengthEncoding.RUN_B) {
+                run += (symbol + 1) * weight;
+                weight <<= 1;
+                if (run > end - pos) {
+                    throw new IllegalArgumentException("Nuļļu virkne pārsniedz bloku: " + run);
+                }
+                continue;
+            }
+            if (run > 0) {
+                Arrays.fill(output, pos, pos + (int) run, (byte) 0);
+                pos += (int) run;
+                run = 0;
+                weight = 1;
+            }
+            output[pos++] = (byte) (symbol - 1);
+        }
+        Arrays.fill(output, pos, end, (byte) 0);
+
+        MoveToFront.inverseTransform(output, start, end, output, start);
+    }
+
+    /**
+     * Kodē data[start, end) ar BWT + MTF + RLE + Huffman
+     * Katram gabalam: 32 bitu BWT sākuma indekss, tad encode formāts
+     * @param workspace Atkārtoti izmantojamie masīvi
+     */
+    public static void encodeBurrowsWheeler(byte[] data, int start, int end, BitWriter out, Workspace workspace) {
+        workspace.ensureTransformCapacity(Math.min(end - start, BWT_BLOCK_SIZE));
+        byte[] transformed = workspace.transformed;
+        for (int pos = start; pos < end; ) {
+            int chunkLength = Math.min(end - pos, BWT_BLOCK_SIZE);
+            int primaryIndex = BurrowsWheelerTransform.transform(data, pos, pos + chunkLength, transformed, 0);
+            out.writeBits(primaryIndex, 32);
+            encode(transformed, 0, chunkLength, out, workspace);
+            pos += chunkLength;
+        }
+    }
+
+    /**
+     * Dekodē encodeBurrowsWheeler izvadi output[start, end); BWT inversā tiek piemērota uz vietas
+     */
+    public static void decodeBurrowsWheeler(BitReader in, byte[] output, int start, int end) {
+        decodeBurrowsWheeler(in, output, start, end, new HuffmanCoding.DecodingTables());
+    }
+
+    /**
+     * Dekodē encodeBurrowsWheeler izvadi, simbolu tabulu pārbūvējot tables masīvos
+     * @param tables Atkārtoti izmantojamās dekodēšanas tabulas
+     */
+    public static void decodeBurrowsWheeler(BitReader in, byte[] output, int start, int end,
+                                            HuffmanCoding.DecodingTables tables) {
+        for (int pos = start; pos < end; ) {
+            int chunkLength = Math.min(end - pos, BWT_BLOCK_SIZE);
+            int primaryIndex = in.readBits(32);
+            decode(in, output, pos, pos + chunkLength, tables);
+            BurrowsWheelerTransform.inverseTransform(output, pos, pos + chunkLength, primaryIndex, output, pos);
+            pos += chunkLength;
+        }
+    }
+
+    /**
+     * Atkārtoti izmantojami masīvi kodēšanai; vienlaikus jālieto vienā pavedienā
+     */
+    public static final class Workspace {
+        private byte[] ranks = new byte[0];
+        private byte[] transformed = new byte[0];
+        private int[] symbols = new int[0];
+        private final int[] histogram = new int[ALPHABET_SIZE];
+        private final byte[] lengths = new byte[ALPHABET_SIZE];
+        private final int[] codes = new int[ALPHABET_SIZE];
+        private final HuffmanCoding.Workspace huffman = new HuffmanCoding.Workspace();
+
+        private void ensureCapacity(int length) {
+            if (ranks.length < length) {
+                ranks = new byte[length];
+                symbols = new int[length];
+            }
+        }
+
+        private void ensureTransformCapacity(int length) {
+            if (transformed.length < length) {
+                transformed = new byte[length];
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Ievades plūsma, kas lasa failu caur atmiņā attēlotiem segmentiem
+ * Baiti tiek kopēti no lapu kešatmiņas tieši lasītāja masīvā, bez read syscall un starpbuferiem
+ */
+class MappedFileInputStream extends InputStream {
+
+    private static final long SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long markPosition;
+
+    /**
+     * @param channel Faila kanāls, tiek aizvērts kopā ar plūsmu
+     */
+    MappedFileInputStream(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return segment.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, segment.remaining());
+        segment.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long target = Math.min(size, position() + Math.max(0, n));
+        long skipped = target - position();
+        seek(target);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        markPosition = position();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        seek(markPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long position() {
+        return segmentStart + segment.position();
+    }
+
+    private void seek(long position) throws IOException {
+        if (position >= segmentStart && position <= segmentStart + segment.limit()) {
+            segment.position((int) (position - segmentStart));
+        } else {
+            map(position);
+        }
+    }
+
+    private boolean ensureData() throws IOException {
+        if (segment.hasRemaining()) {
+            return true;
+        }
+        long next = segmentStart + segment.limit();
+        if (next >= size) {
+            return false;
+        }
+        map(next);
+        return true;
+    }
+
+    private void map(long position) throws IOException {
+        segmentStart = position;
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+    }
+}
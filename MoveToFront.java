@@ -1,13 +1,102 @@
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Move-to-Front (MTF) transformācija
  * Pārveido BWT izvadi tā, lai būtu vairāk mazu skaitļu (0, 1, 2...)
+ *
+ * Baitu alfabētam secība glabājas 256 baitu tabulā (transform - 32 long vārdos, pirmie divi reģistros);
+ * int/String versijām alfabēts ir 0-65535
+ * (kā iepriekš), bet tiek glabāti tikai jau redzētie simboli - neredzēta simbola indekss ir
+ * redzēto skaits plus tā vieta starp neredzētajiem, tāpēc darbs ir proporcionāls atšķirīgo simbolu skaitam
  */
 public class MoveToFront {
     
     private static final int ALPHABET_SIZE = 256;
+    private static final int EXTENDED_ALPHABET_SIZE = 65536;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    
+    /**
+     * Piemēro MTF transformāciju baitiem: output[outputPos + i] ir input[start + i] rangs
+     * @param input Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param output Izvades masīvs rangiem (0-255); drīkst būt tas pats, kas input
+     * @param outputPos Pirmā ranga indekss
+     */
+    public static void transform(byte[] input, int start, int end, byte[] output, int outputPos) {
+        // Rangs r ir order[r >>> 3] baitā r & 7; meklēšana un nobīde notiek pa 8 rangiem vienlaikus,
+        // rangi 0-15 (vairums pat neapstrādātam tekstam) nepieskaras atmiņai
+        long[] order = new long[ALPHABET_SIZE / 8];
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            order[i >>> 3] |= (long) i << ((i & 7) << 3);
+        }
+        long front = order[0];
+        long second = order[1];
+        for (int i = start; i < end; i++) {
+            long value = input[i] & 0xFF;
+            if ((front & 0xFF) == value) {
+                output[outputPos++] = 0;
+                continue;
+            }
+            long pattern = value * ONES;
+            long zero = zeroBytes(front ^ pattern);
+            int rank;
+            if (zero != 0) {
+                long moved = movedBytes(zero);
+                front = (front & ~moved) | (((front << 8) | value) & moved);
+                rank = (Long.bitCount(moved) >>> 3) - 1;
+            } else {
+                long carry = front >>> 56;
+                front = (front << 8) | value;
+                zero = zeroBytes(second ^ pattern);
+                if (zero != 0) {
+                    long moved = movedBytes(zero);
+                    second = (second & ~moved) | (((second << 8) | carry) & moved);
+                    rank = 8 + (Long.bitCount(moved) >>> 3) - 1;
+                } else {
+                    long next = second >>> 56;
+                    second = (second << 8) | carry;
+                    carry = next;
+                    for (int k = 2; ; k++) {
+                        long word = order[k];
+                        zero = zeroBytes(word ^ pattern);
+                        if (zero != 0) {
+                            long moved = movedBytes(zero);
+                            order[k] = (word & ~moved) | (((word << 8) | carry) & moved);
+                            rank = (k << 3) + (Long.bitCount(moved) >>> 3) - 1;
+                            break;
+                        }
+                        order[k] = (word << 8) | carry;
+                        carry = word >>> 56;
+                    }
+                }
+            }
+            output[outputPos++] = (byte) rank;
+        }
+    }
+    
+    /**
+     * Atgriež baitu MTF transformāciju
+     * @param ranks Rangi (0-255)
+     * @param start Pirmā ranga indekss
+     * @param end Pozīcija aiz pēdējā ranga
+     * @param output Izvades masīvs; drīkst būt tas pats, kas ranks
+     * @param outputPos Pirmā baita indekss
+     */
+    public static void inverseTransform(byte[] ranks, int start, int end, byte[] output, int outputPos) {
+        byte[] order = identityOrder();
+        for (int i = start; i < end; i++) {
+            int rank = ranks[i] & 0xFF;
+            byte value = order[rank];
+            if (rank == 1) {
+                order[1] = order[0];
+                order[0] = value;
+            } else if (rank > 1) {
+                System.arraycopy(order, 0, order, 1, rank);
+                order[0] = value;
+            }
+            output[outputPos++] = value;
+        }
+    }
     
     /**
      * Piemēro MTF transformāciju
@@ -18,38 +107,16 @@ public class MoveToFront {
         if (input == null || input.isEmpty()) {
             return new int[0];
         }
-        
-        // Izveido alfabētu (paplašināts līdz 65536, lai atbalstītu visus Unicode simbolus)
-        List<Integer> alphabet = new ArrayList<>();
-        for (int i = 0; i < 65536; i++) {
-            alphabet.add(i);
+        int[] values = new int[input.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.charAt(i);
         }
-        
-        int[] result = new int[input.length()];
-        
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            int charValue = (int) c;
-            int index = alphabet.indexOf(charValue);
-            
-            if (index == -1) {
-                // Ja simbols nav alfabētā, pievieno to
-                alphabet.add(charValue);
-                index = alphabet.size() - 1;
-            }
-            
-            result[i] = index;
-            
-            // Pārvieto simbolu uz priekšu
-            alphabet.remove(index);
-            alphabet.add(0, charValue);
-        }
-        
-        return result;
+        return transformArray(values);
     }
     
     /**
      * Piemēro MTF transformāciju masīvam
+     * Simboli ārpus 0-65535 tiek pievienoti alfabēta beigām pirmajā parādīšanās reizē
      * @param input Ievades masīvs
      * @return Transformētais masīvs
      */
@@ -58,30 +125,11 @@ public class MoveToFront {
             return new int[0];
         }
         
-        // Izveido alfabētu (paplašināts līdz 65536)
-        List<Integer> alphabet = new ArrayList<>();
-        for (int i = 0; i < 65536; i++) {
-            alphabet.add(i);
-        }
-        
+        SeenSymbols seen = new SeenSymbols();
         int[] result = new int[input.length];
-        
         for (int i = 0; i < input.length; i++) {
-            int value = input[i];
-            int index = alphabet.indexOf(value);
-            
-            if (index == -1) {
-                alphabet.add(value);
-                index = alphabet.size() - 1;
-            }
-            
-            result[i] = index;
-            
-            // Pārvieto simbolu uz priekšu
-            alphabet.remove(index);
-            alphabet.add(0, value);
+            result[i] = seen.moveToFront(input[i]);
         }
-        
         return result;
     }
     
@@ -95,28 +143,11 @@ public class MoveToFront {
             return new int[0];
         }
         
-        // Izveido alfabētu (paplašināts līdz 65536)
-        List<Integer> alphabet = new ArrayList<>();
-        for (int i = 0; i < 65536; i++) {
-            alphabet.add(i);
-        }
-        
+        SeenSymbols seen = new SeenSymbols();
         int[] result = new int[encoded.length];
-        
         for (int i = 0; i < encoded.length; i++) {
-            int index = encoded[i];
-            if (index < 0 || index >= alphabet.size()) {
-                throw new IllegalArgumentException("Nederīgs indekss: " + index);
-            }
-            
-            int value = alphabet.get(index);
-            result[i] = value;
-            
-            // Pārvieto simbolu uz priekšu
-            alphabet.remove(index);
-            alphabet.add(0, value);
+            result[i] = seen.symbolAt(encoded[i]);
         }
-        
         return result;
     }
     
@@ -130,28 +161,117 @@ public class MoveToFront {
             return "";
         }
         
-        // Izveido alfabētu (paplašināts līdz 65536)
-        List<Integer> alphabet = new ArrayList<>();
-        for (int i = 0; i < 65536; i++) {
-            alphabet.add(i);
+        int[] values = inverseTransformArray(encoded);
+        StringBuilder result = new StringBuilder(values.length);
+        for (int value : values) {
+            result.append((char) value);
+        }
+        return result.toString();
+    }
+    
+    private static byte[] identityOrder() {
+        byte[] order = new byte[ALPHABET_SIZE];
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            order[i] = (byte) i;
         }
+        return order;
+    }
+    
+    /**
+     * Iezīmē (augstākais bits) nulles baitus word; zemākais iezīmētais ir precīzs, augstākie var būt kļūdaini
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGHS;
+    }
+    
+    /**
+     * Baiti līdz zemākajam iezīmētajam (ieskaitot) - tie, kas pārvietošanā uz priekšu nobīdās par vienu
+     */
+    private static long movedBytes(long zero) {
+        return ((zero & -zero) << 1) - 1;
+    }
+    
+    /**
+     * Paplašinātā alfabēta stāvoklis: redzētie simboli MTF secībā, aiz tiem neredzētie
+     * 0-65535 augošā secībā; sorted - redzētie simboli no šī diapazona augošā secībā
+     */
+    private static class SeenSymbols {
+        private int[] recent = new int[64];
+        private int recentCount;
+        private int[] sorted = new int[64];
+        private int sortedCount;
         
-        StringBuilder result = new StringBuilder();
+        /**
+         * @return Simbola indekss pirms pārvietošanas uz priekšu
+         */
+        int moveToFront(int value) {
+            for (int i = 0; i < recentCount; i++) {
+                if (recent[i] == value) {
+                    System.arraycopy(recent, 0, recent, 1, i);
+                    recent[0] = value;
+                    return i;
+                }
+            }
+            
+            // Neredzēts: aiz redzētajiem, starp neredzētajiem pēc vērtības
+            int index;
+            if (value >= 0 && value < EXTENDED_ALPHABET_SIZE) {
+                int smaller = insertSorted(value);
+                index = recentCount + value - smaller;
+            } else {
+                index = recentCount + EXTENDED_ALPHABET_SIZE - sortedCount;
+            }
+            addFront(value);
+            return index;
+        }
         
-        for (int index : encoded) {
-            if (index < 0 || index >= alphabet.size()) {
+        /**
+         * @return Simbols indeksā index, kas tiek pārvietots uz priekšu
+         */
+        int symbolAt(int index) {
+            if (index < 0 || index >= recentCount + EXTENDED_ALPHABET_SIZE - sortedCount) {
                 throw new IllegalArgumentException("Nederīgs indekss: " + index);
             }
+            if (index < recentCount) {
+                int value = recent[index];
+                System.arraycopy(recent, 0, recent, 1, index);
+                recent[0] = value;
+                return value;
+            }
             
-            int symbol = alphabet.get(index);
-            result.append((char) symbol);
-            
-            // Pārvieto simbolu uz priekšu
-            alphabet.remove(index);
-            alphabet.add(0, symbol);
+            // index - recentCount. neredzētais simbols: izlaiž redzētos, kas nav lielāki par kandidātu
+            int value = index - recentCount;
+            for (int i = 0; i < sortedCount && sorted[i] <= value; i++) {
+                value++;
+            }
+            insertSorted(value);
+            addFront(value);
+            return value;
         }
         
-        return result.toString();
+        /**
+         * Ievieto value sorted masīvā
+         * @return Redzēto simbolu skaits, kas mazāki par value
+         */
+        private int insertSorted(int value) {
+            int position = java.util.Arrays.binarySearch(sorted, 0, sortedCount, value);
+            position = -position - 1;
+            if (sortedCount == sorted.length) {
+                sorted = java.util.Arrays.copyOf(sorted, sorted.length * 2);
+            }
+            System.arraycopy(sorted, position, sorted, position + 1, sortedCount - position);
+            sorted[position] = value;
+            sortedCount++;
+            return position;
+        }
+        
+        private void addFront(int value) {
+            if (recentCount == recent.length) {
+                recent = java.util.Arrays.copyOf(recent, recent.length * 2);
+            }
+            System.arraycopy(recent, 0, recent, 1, recentCount);
+            recent[0] = value;
+            recentCount++;
+        }
     }
 }
-
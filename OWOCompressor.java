@@ -1,18 +1,82 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * OWO optimizēts kompresijas algoritms
  * Izmanto: LZ77 -> Huffman ar kompaktāku serializāciju
  * Optimizēts maziem failiem ar minimālu overhead
+ * Strādā ar baitiem, tāpēc der gan tekstam, gan binārajiem failiem
+ * Faili tiek rakstīti OWO3 bloku formātā caur OWOOutputStream, vecie OWO2 faili tiek tikai nolasīti
  */
 public class OWOCompressor {
     
-    private static final String MAGIC_HEADER = "OWO2";
-    private static final int MIN_FILE_SIZE_TO_COMPRESS = 256; // Necompresē failus mazākus par 256 baitiem
+    private static final String MAGIC_HEADER = "OWO2"; // Viena bloka faili, tikai dekodēšanai
+    private static final long MAP_SEGMENT_SIZE = 256L * 1024 * 1024;
+    private static final int MIN_FILE_SIZE_TO_COMPRESS = 64; // Necompresē failus mazākus par 64 baitiem
     private static final int COMPRESSION_THRESHOLD = 95; // Compression ratio % - ja > 95%, glabā nekompresētu
+    private static final int STORED_OVERHEAD = 5;    // Marker + int garums nekompresētam blokam
+    private static final int PROBE_MIN_LENGTH = 4096; // Mazākiem blokiem pilna kompresija ir lētāka par novērtējumu
+    private static final int AUTO_MIN_LENGTH = 16 * 1024; // Mazākiem blokiem AUTO izvēlas LZ77 bez izmēģinājumiem
+    private static final int AUTO_SAMPLE_LENGTH = 16 * 1024; // LZ77 attiecība virs loga izmēra gandrīz nemainās
+    private static final int AUTO_BWT_SAMPLE_LENGTH = 64 * 1024; // BWT uzlabojas ar bloka izmēru - vajag lielāku izlasi
+    private static final int AUTO_MIN_GAIN = 2;      // Dārgākai stratēģijai izlase jāsamazina vēl par tik procentiem
+    
+    // AUTO kandidāti katram parsēšanas veidam CPU cenas secībā; config null - bloka līmenis
+    // Aptuvenā cena pret noklusējuma līmeni: LZ77 1-3 ~0.5x, MTF_RLE ~0.6x, BWT ~2-3x, LZ77 8-9 ~5-7x
+    private static final AutoCandidate AUTO_LZ77 = new AutoCandidate(Strategy.LZ77, null);
+    private static final AutoCandidate AUTO_MTF_RLE = new AutoCandidate(Strategy.MTF_RLE, null);
+    private static final AutoCandidate AUTO_BWT = new AutoCandidate(Strategy.BWT, null);
+    private static final AutoCandidate[] AUTO_GREEDY = {AUTO_LZ77, AUTO_MTF_RLE};
+    private static final AutoCandidate[] AUTO_LAZY = {
+        new AutoCandidate(Strategy.LZ77, LZ77Compression.forLevel(LZ77Compression.MIN_LEVEL)),
+        AUTO_MTF_RLE, AUTO_LZ77, AUTO_BWT
+    };
+    private static final AutoCandidate[] AUTO_OPTIMAL = {
+        AUTO_LAZY[0], AUTO_MTF_RLE,
+        new AutoCandidate(Strategy.LZ77, LZ77Compression.forLevel(LZ77Compression.DEFAULT_LEVEL)),
+        AUTO_BWT, AUTO_LZ77
+    };
+    
+    // Datu marķieri (pirmais baits aiz header)
+    private static final int MARKER_STORED = 0;      // Nekompresēti baiti
+    private static final int MARKER_LZ77_CHARS = 1;  // LZ77 (UTF-16 char tokeni) + Huffman, tikai dekodēšanai
+    private static final int MARKER_LZ77_BYTES = 2;  // LZ77 (baitu tokeni) + Huffman, tikai dekodēšanai
+    private static final int MARKER_LZ77_CANONICAL = 3; // LZ77 + viens kanoniskais Huffman alfabēts, tikai dekodēšanai
+    private static final int MARKER_LZ77_SPLIT = 4;  // LZ77 + atsevišķi literāļu/garumu un attālumu alfabēti
+    static final int MARKER_LZ77_PRIMED = 5;         // Kā 4, bet atbilstības var atsaukties uz iepriekšējo bloku
+    private static final int MARKER_MTF_RLE = 6;     // MTF + nuļļu virkņu RLE + Huffman (MTFHuffmanCoder)
+    private static final int MARKER_BWT = 7;         // BWT + MTF + nuļļu virkņu RLE + Huffman
+    private static final int MARKER_PIPELINE = 8;    // Posmu ķēde, kas aprakstīta galvenē (CompressionPipeline)
+    private static final int MARKER_LZ77_DICTIONARY = 9; // Kā 4, bet atbilstības var atsaukties uz vārdnīcu (OWODictionary)
+    private static final int MARKER_LZ77_STATIC = 10; // LZ77 ar iebūvēto tabulu (StaticHuffmanTable), bez kodu garumiem
+    
+    /**
+     * Bloka kodēšanas stratēģija
+     */
+    public enum Strategy {
+        /** LZ77 + Huffman - vispārīgs noklusējums, īpaši tekstam un HTML */
+        LZ77,
+        /**
+         * MTF + RLE + Huffman - datiem ar garām vienādu baitu virknēm; līmenis netiek izmantots
+         * Nav ātrdarbīga iespēja: MTF uz neapstrādātiem baitiem (tekstam vidējais rangs ~15) ir tikai
+         * ~60-70 MB/s (simtiem MB/s - tikai BWT izvadei), skatīt MTFBenchmark
+         */
+        MTF_RLE,
+        /** BWT + MTF + RLE + Huffman - arhivēšanai, kur attiecība svarīgāka par ātrumu; līmenis netiek izmantots */
+        BWT,
+        /**
+         * Katram blokam izvēlas stratēģiju un LZ77 līmeni pēc izmēģinājuma uz izlases; līmenis nosaka CPU budžetu
+         * (1-3 - LZ77 un MTF_RLE, 4-7 - arī BWT, 8-9 - arī optimālā parsēšana). Izvēle redzama ar strategyOf
+         */
+        AUTO
+    }
     
     /**
      * Kompresē failu
@@ -21,17 +85,28 @@ public class OWOCompressor {
      * @throws IOException Ja rodas I/O kļūda
      */
     public static void compress(String inputPath, String outputPath) throws IOException {
-        // Nolasīt failu
-        String content = new String(Files.readAllBytes(Paths.get(inputPath)), "UTF-8");
-        
-        // Kompresēt
-        byte[] compressed = compressString(content);
-        
-        // Saglabāt .owo failā
-        try (DataOutputStream out = new DataOutputStream(
-                new BufferedOutputStream(new FileOutputStream(outputPath)))) {
-            out.writeBytes(MAGIC_HEADER);
-            out.write(compressed);
+        compress(inputPath, outputPath, LZ77Compression.DEFAULT_LEVEL);
+    }
+    
+    /**
+     * Kompresē failu norādītajā līmenī
+     * @param inputPath Ievades faila ceļš
+     * @param outputPath Izvades faila ceļš (.owo)
+     * @param level Kompresijas līmenis (1 - ātrākais, 9 - labākā kompresija)
+     * @throws IOException Ja rodas I/O kļūda
+     */
+    public static void compress(String inputPath, String outputPath, int level) throws IOException {
+        // Ievade caur atmiņā attēlotiem segmentiem, katrs bloka ieraksts - viens write uz kanālu;
+        // atmiņā ir tikai daži bloki neatkarīgi no faila izmēra. Bloki tiek kompresēti paralēli uz kopējā ForkJoinPool, izvadē tie paliek secībā
+        try (FileChannel in = FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ);
+             OWOOutputStream out = new OWOOutputStream(Channels.newOutputStream(FileChannel.open(
+                 Paths.get(outputPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)), level)) {
+            out.setExecutor(ForkJoinPool.commonPool());
+            long size = in.size();
+            for (long pos = 0; pos < size; pos += MAP_SEGMENT_SIZE) {
+                out.write(in.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_SEGMENT_SIZE, size - pos)));
+            }
         }
     }
     
@@ -41,99 +116,410 @@ public class OWOCompressor {
      * @return Kompresēti baiti
      */
     public static byte[] compressString(String input) throws IOException {
-        byte[] originalBytes = input.getBytes("UTF-8");
-        
-        // Pārāk maziem failiem - glabāt nekompresētu
-        if (originalBytes.length < MIN_FILE_SIZE_TO_COMPRESS) {
-            return serializeUncompressed(originalBytes);
+        return compressString(input, LZ77Compression.DEFAULT_LEVEL);
+    }
+    
+    /**
+     * Kompresē tekstu norādītajā līmenī
+     * @param input Ievades teksts
+     * @param level Kompresijas līmenis (1-3 greedy, 4-7 lazy, 8-9 optimālā parsēšana)
+     * @return Kompresēti baiti
+     */
+    public static byte[] compressString(String input, int level) throws IOException {
+        return compress(input.getBytes("UTF-8"), level);
+    }
+    
+    /**
+     * Kompresē patvaļīgus baitus
+     * @param input Ievades baiti
+     * @return Kompresēti baiti
+     */
+    public static byte[] compress(byte[] input) throws IOException {
+        return compress(input, LZ77Compression.DEFAULT_LEVEL);
+    }
+    
+    /**
+     * Kompresē patvaļīgus baitus norādītajā līmenī
+     * @param input Ievades baiti
+     * @param level Kompresijas līmenis (1-3 greedy, 4-7 lazy, 8-9 optimālā parsēšana)
+     * @return Kompresēti baiti
+     */
+    public static byte[] compress(byte[] input, int level) throws IOException {
+        return Context.forCurrentThread().compress(input, level);
+    }
+    
+    /**
+     * Kompresē patvaļīgus baitus ar norādīto stratēģiju
+     * @param input Ievades baiti
+     * @param level Kompresijas līmenis (1-9)
+     * @param strategy Bloka kodēšanas stratēģija
+     * @return Kompresēti baiti
+     */
+    public static byte[] compress(byte[] input, int level, Strategy strategy) throws IOException {
+        return Context.forCurrentThread().compress(input, level, strategy);
+    }
+    
+    /**
+     * Kompresē patvaļīgus baitus ar iepriekš zināmu vārdnīcu - atbilstības var atsaukties uz to kā uz
+     * jau redzētu vēsturi, tāpēc tas īpaši palīdz maziem fragmentiem. Galvenē glabājas tikai vārdnīcas ID,
+     * dekompresējot vārdnīcai jābūt reģistrētai (OWODictionary.register)
+     * @param input Ievades baiti
+     * @param level Kompresijas līmenis (1-9)
+     * @param dictionary Vārdnīca, piemēram, OWODictionary.HTML
+     * @return Kompresēti baiti
+     */
+    public static byte[] compress(byte[] input, int level, OWODictionary dictionary) throws IOException {
+        return Context.forCurrentThread().compress(input, level, dictionary);
+    }
+    
+    /**
+     * Kompresē patvaļīgus baitus ar norādīto posmu ķēdi; ķēde tiek ierakstīta galvenē,
+     * tāpēc decompress to atjauno bez papildu parametriem
+     * @param input Ievades baiti
+     * @param pipeline Posmu ķēde
+     * @return Kompresēti baiti
+     */
+    public static byte[] compress(byte[] input, CompressionPipeline pipeline) throws IOException {
+        return Context.forCurrentThread().compress(input, pipeline);
+    }
+    
+    /**
+     * Nosaka, ar kādu stratēģiju bloks kodēts (piemēram, lai uzskaitītu Strategy.AUTO izvēles)
+     * @param compressed compress izvade
+     * @return LZ77, MTF_RLE vai BWT; null nekompresētam blokam vai posmu ķēdei
+     * @throws IOException Ja dati ir tukši vai marķieris nav zināms
+     */
+    public static Strategy strategyOf(byte[] compressed) throws IOException {
+        if (compressed.length == 0) {
+            throw new IOException("Tukši kompresētie dati");
         }
-        
-        // LZ77 + Huffman kompresija
-        List<LZ77Compression.LZ77Token> lz77Result = LZ77Compression.compress(input);
-        int[] lz77Array = lz77ToArray(lz77Result);
-        HuffmanCoding.HuffmanResult huffmanResult = HuffmanCoding.encode(lz77Array);
-        byte[] compressedData = serializeCompressedDataOptimized(huffmanResult);
-        
-        // Pārbaudīt, vai kompresija ir vērta
-        int totalSize = compressedData.length;
-        double ratio = (double) totalSize / originalBytes.length * 100;
-        
-        // Ja kompresija nepalīdz (overhead pārāk liels), glabāt nekompresētu
-        if (ratio >= COMPRESSION_THRESHOLD) {
-            return serializeUncompressed(originalBytes);
+        return strategyForMarker(compressed[0]);
+    }
+    
+    /**
+     * @return Stratēģija bloka marķierim; null nekompresētam blokam vai posmu ķēdei
+     */
+    static Strategy strategyForMarker(int marker) throws IOException {
+        if (marker == MARKER_STORED || marker == MARKER_PIPELINE) {
+            return null;
         }
-        
-        return compressedData;
+        if (marker == MARKER_MTF_RLE) {
+            return Strategy.MTF_RLE;
+        }
+        if (marker == MARKER_BWT) {
+            return Strategy.BWT;
+        }
+        if (marker == MARKER_LZ77_CHARS || marker == MARKER_LZ77_BYTES || marker == MARKER_LZ77_CANONICAL
+            || marker == MARKER_LZ77_SPLIT || marker == MARKER_LZ77_PRIMED || marker == MARKER_LZ77_DICTIONARY
+            || marker == MARKER_LZ77_STATIC) {
+            return Strategy.LZ77;
+        }
+        throw new IOException("Nezināms bloka marķieris: " + marker);
     }
     
     /**
-     * Serializē nekompresētos datus ar minimālu overhead
+     * Maksimālais kompresēto datu izmērs - nekompresējamus datus glabā ar marker 0,
+     * tāpēc kompresēts bloks nekad nav lielāks par ievadi + 5 baiti
+     * @param inputLength Ievades baitu skaits
+     * @return Baitu skaits, kas jārezervē compress(ByteBuffer, ByteBuffer) mērķī
      */
-    private static byte[] serializeUncompressed(byte[] data) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataOutputStream out = new DataOutputStream(baos);
-        
-        out.writeByte(0); // Marker: nekompresēts
-        out.writeInt(data.length);
-        out.write(data);
-        out.flush();
-        
-        return baos.toByteArray();
+    public static int maxCompressedLength(int inputLength) {
+        if (inputLength < 0 || inputLength > Integer.MAX_VALUE - STORED_OVERHEAD) {
+            throw new IllegalArgumentException("Nederīgs ievades garums: " + inputLength);
+        }
+        return inputLength + STORED_OVERHEAD;
     }
     
     /**
-     * Optimizēta Huffman datu serializācija ar kompaktāku formātu
+     * Kompresē src atlikušos baitus uz dst noklusējuma līmenī
+     * @see #compress(ByteBuffer, ByteBuffer, int)
      */
-    private static byte[] serializeCompressedDataOptimized(
-            HuffmanCoding.HuffmanResult huffmanResult) throws IOException {
-        
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataOutputStream out = new DataOutputStream(baos);
+    public static int compress(ByteBuffer src, ByteBuffer dst) {
+        return compress(src, dst, LZ77Compression.DEFAULT_LEVEL);
+    }
+    
+    /**
+     * Kompresē src atlikušos baitus uz dst tajā pašā formātā kā compress(byte[])
+     * Strādā ar heap un direct buferiem; heap buferi tiek lasīti un rakstīti bez starpposma kopijām,
+     * un baiti ārpus [position, limit) netiek ne lasīti, ne mainīti
+     * @param src Ievade, pozīcija tiek pārvietota līdz limit
+     * @param dst Izvade ar vismaz maxCompressedLength(src.remaining()) brīviem baitiem,
+     *            pozīcija tiek pārvietota aiz kompresētajiem datiem
+     * @param level Kompresijas līmenis (1-9)
+     * @return Kompresēto baitu skaits
+     */
+    public static int compress(ByteBuffer src, ByteBuffer dst, int level) {
+        return Context.forCurrentThread().compress(src, dst, level);
+    }
+    
+    /**
+     * Kompresē bloku kā pilnu OWO3 ierakstu [int oriģinālais garums][int kompresētais garums][bloks]
+     * vienā masīvā, lai to var izrakstīt ar vienu write izsaukumu
+     * Ja start > 0, atbilstības var atsaukties uz iepriekšējiem WINDOW_SIZE baitiem (marker 5),
+     * citādi - uz vārdnīcu (marker 9 vai 10), ja tā dota; citādi bloks ir neatkarīgs
+     * @param target Buferis ierakstam (vēlams maxCompressedLength(end - start) + 8 baiti)
+     * @return Ieraksts [0, limit) masīvā target vai, ja tas nepietika, jaunā masīvā
+     */
+    static ByteBuffer compressRecord(byte[] data, int start, int end, int level, Strategy strategy,
+                                     OWODictionary dictionary, byte[] target) {
+        return Context.forCurrentThread().compressRecord(data, start, end, level, strategy, dictionary, target);
+    }
+    
+    /**
+     * Kompresē bloku kā OWO3 ierakstu ar posmu ķēdi (marker 8); bloks vienmēr ir neatkarīgs
+     */
+    static ByteBuffer compressRecord(byte[] data, int start, int end, CompressionPipeline pipeline, byte[] target) {
+        return Context.forCurrentThread().compressRecord(data, start, end, pipeline, target);
+    }
+    
+    /**
+     * Raksta marker un bloka datus; ja kompresija neatmaksājas, tos pārraksta ar nekompresētiem baitiem
+     * Vārdnīca tiek izmantota LZ77 blokiem bez citas vēstures (start == historyStart)
+     * Bloki, kas pēc CompressibilityProbe izlases nav kompresējami, tiek glabāti bez kompresijas mēģinājuma
+     * (ar vārdnīcu izlase netiek vērtēta - tā vārdnīcu neredz), un LZ77 parsēšana tiek pārtraukta, tiklīdz
+     * visa bloka novērtētā attiecība sasniedz COMPRESSION_THRESHOLD
+     */
+    private static void writeBlock(byte[] data, int historyStart, int start, int end,
+                                   LZ77Compression.LevelConfig config, Strategy strategy,
+                                   OWODictionary dictionary, BitWriter out, Context context) {
+        if (dictionary == null && isHopeless(data, historyStart, start, end, context)) {
+            serializeUncompressed(data, start, end - start, out);
+            return;
+        }
+        if (strategy == Strategy.AUTO) {
+            AutoCandidate choice = chooseStrategy(data, start, end, config, context);
+            strategy = choice.strategy;
+            config = choice.config(config);
+        }
+        encodeBlock(data, historyStart, start, end, config, strategy, dictionary, out, context);
+    }
+    
+    /**
+     * Kodē bloku ar konkrētu stratēģiju (ne AUTO) bez izlases novērtējuma; ja kompresija neatmaksājas,
+     * to pārraksta ar nekompresētiem baitiem
+     */
+    private static void encodeBlock(byte[] data, int historyStart, int start, int end,
+                                    LZ77Compression.LevelConfig config, Strategy strategy,
+                                    OWODictionary dictionary, BitWriter out, Context context) {
+        int length = end - start;
+        int blockStart = out.finish();
         
-        // Marker: kompresēts (1 = Huffman + LZ77)
-        out.writeByte(1);
+        if (length > 0 && dictionary != null && strategy == Strategy.LZ77 && start == historyStart) {
+            // Vārdnīca buferī tieši pirms ievades - meklētājam tā ir parasta vēsture
+            int dictionaryLength = dictionary.size();
+            byte[] buffer = context.dictionaryBuffer(dictionaryLength + length);
+            dictionary.copyTo(buffer, 0);
+            System.arraycopy(data, start, buffer, dictionaryLength, length);
+            
+            LZ77TokenBuffer tokens = context.tokens;
+            if (LZ77Compression.compress(buffer, 0, dictionaryLength, dictionaryLength + length, config,
+                                         tokens, context.workspace, COMPRESSION_THRESHOLD)) {
+                writeLZ77Block(tokens, length, dictionary, out, context);
+                
+                if ((double) (out.finish() - blockStart) / length * 100 < COMPRESSION_THRESHOLD) {
+                    return;
+                }
+                out.rewind(blockStart);
+            }
+        } else if (length >= MIN_FILE_SIZE_TO_COMPRESS && strategy != Strategy.LZ77) {
+            out.writeBits(strategy == Strategy.BWT ? MARKER_BWT : MARKER_MTF_RLE, 8);
+            writeVariableLengthInt(out, length);
+            if (strategy == Strategy.BWT) {
+                MTFHuffmanCoder.encodeBurrowsWheeler(data, start, end, out, context.mtfWorkspace());
+            } else {
+                MTFHuffmanCoder.encode(data, start, end, out, context.mtfWorkspace());
+            }
+            out.alignToByte();
+            
+            if ((double) (out.finish() - blockStart) / length * 100 < COMPRESSION_THRESHOLD) {
+                return;
+            }
+            out.rewind(blockStart);
+        } else if (length >= MIN_FILE_SIZE_TO_COMPRESS) {
+            // LZ77 + Huffman kompresija
+            LZ77TokenBuffer tokens = context.tokens;
+            if (LZ77Compression.compress(data, historyStart, start, end, config, tokens, context.workspace,
+                                         COMPRESSION_THRESHOLD)) {
+                if (start > historyStart) {
+                    serializeCompressedDataOptimized(tokens, length, MARKER_LZ77_PRIMED, context.workspace.tables(), out);
+                } else {
+                    writeLZ77Block(tokens, length, null, out, context);
+                }
+                
+                // Ja kompresija nepalīdz (overhead pārāk liels), glabāt nekompresētu
+                double ratio = (double) (out.finish() - blockStart) / length * 100;
+                if (ratio < COMPRESSION_THRESHOLD) {
+                    return;
+                }
+                out.rewind(blockStart);
+            }
+        }
+        // Pārāk maziem blokiem (zem MIN_FILE_SIZE_TO_COMPRESS) vai ja kompresija nepalīdz - glabāt nekompresētu
+        serializeUncompressed(data, start, length, out);
+    }
+    
+    /**
+     * AUTO: kandidāti tiek izmēģināti uz izlases no bloka vidus CPU cenas secībā; dārgāks kandidāts aizstāj
+     * lētāku tikai, ja kompresijas attiecība ir vismaz par AUTO_MIN_GAIN procentiem labāka
+     * Izlase LZ77 un MTF_RLE - līdz AUTO_SAMPLE_LENGTH (ne vairāk kā 1/4 bloka), BWT - līdz
+     * AUTO_BWT_SAMPLE_LENGTH (ne vairāk kā 1/2 bloka); lielam blokam izmēģinājumi maksā apmēram kā
+     * noklusējuma LZ77 uz 200 KB
+     * Izmēģinājumi izsauc encodeBlock tieši - bloks jau izturēja isHopeless, bet atkārtots novērtējums
+     * izlasei bez vēstures varētu to atzīt par bezcerīgu un visiem kandidātiem dot nekompresētu izmēru
+     */
+    private static AutoCandidate chooseStrategy(byte[] data, int start, int end, LZ77Compression.LevelConfig config,
+                                                Context context) {
+        int length = end - start;
+        if (length < AUTO_MIN_LENGTH) {
+            return AUTO_LZ77;
+        }
         
-        // === Kompaktā Huffman kodeksa serializācija ===
-        Map<Integer, String> codebook = huffmanResult.codebook;
+        AutoCandidate[] candidates = config.parsing == LZ77Compression.Parsing.GREEDY ? AUTO_GREEDY
+                                   : config.parsing == LZ77Compression.Parsing.LAZY ? AUTO_LAZY
+                                   : AUTO_OPTIMAL;
+        BitWriter sampleOut = context.sampleWriter();
+        AutoCandidate best = null;
+        long bestSize = 0;
+        long bestSampleLength = 0;
+        for (AutoCandidate candidate : candidates) {
+            int sampleLength = candidate.strategy == Strategy.BWT ? Math.min(AUTO_BWT_SAMPLE_LENGTH, length / 2)
+                                                                  : Math.min(AUTO_SAMPLE_LENGTH, length / 4);
+            int sampleStart = start + (length - sampleLength) / 2;
+            sampleOut.rewind(0);
+            encodeBlock(data, sampleStart, sampleStart, sampleStart + sampleLength, candidate.config(config),
+                        candidate.strategy, null, sampleOut, context);
+            long size = sampleOut.finish();
+            // size / sampleLength <= (1 - AUTO_MIN_GAIN %) * bestSize / bestSampleLength
+            if (best == null || size * bestSampleLength * 100
+                                <= bestSize * sampleLength * (100 - AUTO_MIN_GAIN)) {
+                best = candidate;
+                bestSize = size;
+                bestSampleLength = sampleLength;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * AUTO kandidāts: stratēģija un LZ77 līmeņa parametri (null - bloka līmenis)
+     */
+    private static final class AutoCandidate {
+        final Strategy strategy;
+        private final LZ77Compression.LevelConfig config;
         
-        // Kodeksa izmērs (variable length encoding)
-        writeVariableLengthInt(out, codebook.size());
+        AutoCandidate(Strategy strategy, LZ77Compression.LevelConfig config) {
+            this.strategy = strategy;
+            this.config = config;
+        }
         
-        // Katrs kodeksa ieraksts: tikai key un code (bez pārmērīga overhead)
-        for (Map.Entry<Integer, String> entry : codebook.entrySet()) {
-            int key = entry.getKey();
-            String code = entry.getValue();
-            
-            // Key - variable length encoding (ekonomē vietu maziem skaitļiem)
-            writeVariableLengthInt(out, key);
+        LZ77Compression.LevelConfig config(LZ77Compression.LevelConfig blockConfig) {
+            return config != null ? config : blockConfig;
+        }
+    }
+    
+    /**
+     * Izlases novērtējums pirms kompresijas: vai attiecība noteikti nebūs zem COMPRESSION_THRESHOLD
+     * Atbilstības tiek meklētas arī vēsturē [historyStart, start) - bloks, kas atkārto iepriekšējos, nav bezcerīgs
+     */
+    private static boolean isHopeless(byte[] data, int historyStart, int start, int end, Context context) {
+        return end - start >= PROBE_MIN_LENGTH
+            && CompressibilityProbe.estimateRatio(data, historyStart, start, end, context.workspace.probeTable())
+               >= COMPRESSION_THRESHOLD;
+    }
+    
+    /**
+     * Raksta neatkarīgu LZ77 bloku: ar iebūvēto tabulu (marker 10), ja pēc bitu skaita tā ir lētāka
+     * par dinamisko tabulu galveni un kodiem, citādi ar dinamiskajām tabulām (marker 4 vai 9)
+     * Marker 10: [10][varint garums][varint tabulas ID][varint vārdnīcas ID, 0 - bez vārdnīcas][kodi]
+     */
+    private static void writeLZ77Block(LZ77TokenBuffer tokens, int length, OWODictionary dictionary,
+                                       BitWriter out, Context context) {
+        // Statiskā varianta galvene ir garāka par tabulas ID un, ja vārdnīcas nav, tās 0
+        int staticHeaderBits = dictionary != null ? 8 : 16;
+        LZ77HuffmanCoder.Tables tables = context.workspace.tables();
+        StaticHuffmanTable table = LZ77HuffmanCoder.cheapestTable(tokens, tables, staticHeaderBits);
+        if (table != null) {
+            out.writeBits(MARKER_LZ77_STATIC, 8);
+            writeVariableLengthInt(out, length);
+            writeVariableLengthInt(out, table.id());
+            writeVariableLengthInt(out, dictionary != null ? dictionary.id() : 0);
+            LZ77HuffmanCoder.encode(tokens, out, table);
+            out.alignToByte();
+        } else {
+            // cheapestTable jau uzbūvēja dinamiskās tabulas un galveni
+            out.writeBits(dictionary != null ? MARKER_LZ77_DICTIONARY : MARKER_LZ77_SPLIT, 8);
+            writeVariableLengthInt(out, length);
+            if (dictionary != null) {
+                writeVariableLengthInt(out, dictionary.id());
+            }
+            LZ77HuffmanCoder.encodePrepared(tokens, out, tables);
+            out.alignToByte();
+        }
+    }
+    
+    /**
+     * Raksta marker 8, garumu un posmu ķēdes izvadi; ja kompresija neatmaksājas - nekompresētus baitus
+     */
+    private static void writePipelineBlock(byte[] data, int start, int end, CompressionPipeline pipeline,
+                                           BitWriter out, Context context) {
+        int length = end - start;
+        int blockStart = out.finish();
+        if (length >= MIN_FILE_SIZE_TO_COMPRESS && !isHopeless(data, start, start, end, context)) {
+            out.writeBits(MARKER_PIPELINE, 8);
+            writeVariableLengthInt(out, length);
+            pipeline.encode(data, start, end, out, context.pipelineWorkspace());
             
-            // Code garums un biti (kompakti)
-            writeVariableLengthInt(out, code.length());
-            byte[] codeBits = codeToBytes(code);
-            out.write(codeBits);
+            if ((double) (out.finish() - blockStart) / length * 100 < COMPRESSION_THRESHOLD) {
+                return;
+            }
+            out.rewind(blockStart);
         }
+        serializeUncompressed(data, start, length, out);
+    }
+    
+    /**
+     * Serializē nekompresētos datus ar minimālu overhead
+     */
+    private static void serializeUncompressed(byte[] data, int offset, int length, BitWriter out) {
+        out.writeBits(MARKER_STORED, 8);
+        out.writeBits(length, 32);
+        out.writeBytes(data, offset, length);
+    }
+    
+    /**
+     * Optimizēta Huffman datu serializācija ar kompaktāku formātu
+     * Literāļi/garumi un attālumi ir atsevišķos alfabētos, katram tikai kodu garumi
+     */
+    private static void serializeCompressedDataOptimized(LZ77TokenBuffer tokens, int originalLength, int marker,
+                                                         LZ77HuffmanCoder.Tables tables, BitWriter out) {
+        // Marker: kompresēts (LZ77 + divi Huffman alfabēti)
+        out.writeBits(marker, 8);
         
-        // === Huffman datu serializācija ===
-        // Datu garums (variable length encoding)
-        writeVariableLengthInt(out, huffmanResult.encodedData.length);
-        out.write(huffmanResult.encodedData);
-        
-        out.flush();
-        return baos.toByteArray();
+        // Oriģinālais garums (variable length encoding) - dekoderis raksta tieši gala buferī
+        writeVariableLengthInt(out, originalLength);
+        LZ77HuffmanCoder.encode(tokens, out, tables);
+        out.alignToByte();
+    }
+    
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
     }
     
     /**
      * Variable Length Integer encoding - ietaupa vietu maziem skaitļiem
      */
-    private static void writeVariableLengthInt(DataOutputStream out, int value) throws IOException {
+    private static void writeVariableLengthInt(BitWriter out, int value) {
         if (value < 128) {
-            out.writeByte(value);
+            out.writeBits(value, 8);
         } else if (value < 16384) {
-            out.writeByte((value >> 8) | 0x80);
-            out.writeByte(value & 0xFF);
+            out.writeBits((value >> 8) | 0x80, 8);
+            out.writeBits(value & 0xFF, 8);
         } else {
-            out.writeByte(0xFF);
-            out.writeInt(value);
+            out.writeBits(0xFF, 8);
+            out.writeBits(value, 32);
         }
     }
     
@@ -159,138 +545,856 @@ public class OWOCompressor {
      * @throws IOException Ja rodas I/O kļūda
      */
     public static void decompress(String inputPath, String outputPath) throws IOException {
-        // Nolasīt .owo failu
         byte[] compressed;
-        try (DataInputStream in = new DataInputStream(
-                new BufferedInputStream(new FileInputStream(inputPath)))) {
+        try (DataInputStream in = new DataInputStream(new MappedFileInputStream(
+                FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ)))) {
             // Pārbaudīt header
+            in.mark(4);
             byte[] header = new byte[4];
             in.readFully(header);
             String headerStr = new String(header, "UTF-8");
+            
+            // Bloku formāts - dekompresē plūsmā, bloki tiek rakstīti kanālā tieši no dekodētāja bufera
+            if (headerStr.equals(OWOOutputStream.MAGIC_HEADER)) {
+                in.reset();
+                try (OutputStream out = Channels.newOutputStream(FileChannel.open(
+                        Paths.get(outputPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING))) {
+                    new OWOInputStream(in).transferTo(out);
+                }
+                return;
+            }
             if (!headerStr.equals(MAGIC_HEADER)) {
                 throw new IOException("Nederīgs OWO faila formāts");
             }
             
-            // Nolasīt atlikušos datus
+            // Vecais viena bloka formāts
             compressed = in.readAllBytes();
         }
         
-        // Dekompresēt
-        String decompressed = decompressBytes(compressed);
-        
-        // Saglabāt
-        Files.write(Paths.get(outputPath), decompressed.getBytes("UTF-8"));
+        // Dekompresēt un saglabāt baitus bez pārkodēšanas
+        Files.write(Paths.get(outputPath), decompress(compressed));
     }
     
+    
     /**
      * Dekompresē baitus
      * @param compressed Kompresēti baiti
      * @return Dekompresēts teksts
      */
     public static String decompressBytes(byte[] compressed) throws IOException {
+        return new String(decompress(compressed), "UTF-8");
+    }
+    
+    /**
+     * Dekompresē baitus bez pārkodēšanas
+     * @param compressed Kompresēti baiti
+     * @return Oriģinālie baiti
+     */
+    public static byte[] decompress(byte[] compressed) throws IOException {
         DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
         
         byte marker = in.readByte();
         
         // Nekompresēts fails
-        if (marker == 0) {
+        if (marker == MARKER_STORED) {
             int length = in.readInt();
             byte[] data = new byte[length];
             in.readFully(data);
-            return new String(data, "UTF-8");
+            return data;
         }
         
-        // Kompresēts fails (Huffman + LZ77)
-        if (marker == 1) {
-            // Nolasīt kodeksu
-            int codebookSize = readVariableLengthInt(in);
-            Map<Integer, String> codebook = new HashMap<>();
+        // Kompresēts fails (LZ77 + divi Huffman alfabēti)
+        if (marker == MARKER_LZ77_SPLIT) {
+            int originalLength = readVariableLengthInt(in);
+            int offset = compressed.length - in.available();
+            if (originalLength < 0) {
+                throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
+            }
             
-            for (int i = 0; i < codebookSize; i++) {
-                int key = readVariableLengthInt(in);
-                int codeLength = readVariableLengthInt(in);
-                
-                byte[] codeBytes = new byte[(codeLength + 7) / 8];
-                in.readFully(codeBytes);
-                String code = bytesToCode(codeBytes, codeLength);
-                
-                codebook.put(key, code);
+            byte[] output = new byte[originalLength];
+            LZ77HuffmanCoder.decode(new BitReader(compressed, offset, compressed.length - offset), output,
+                                    0, 0, originalLength, Context.forCurrentThread().decodingTables());
+            return output;
+        }
+        
+        if (marker == MARKER_MTF_RLE || marker == MARKER_BWT) {
+            int originalLength = readVariableLengthInt(in);
+            int offset = compressed.length - in.available();
+            if (originalLength < 0) {
+                throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
+            }
+            
+            byte[] output = new byte[originalLength];
+            BitReader reader = new BitReader(compressed, offset, compressed.length - offset);
+            HuffmanCoding.DecodingTables tables = Context.forCurrentThread().decodingTables();
+            if (marker == MARKER_BWT) {
+                MTFHuffmanCoder.decodeBurrowsWheeler(reader, output, 0, originalLength, tables);
+            } else {
+                MTFHuffmanCoder.decode(reader, output, 0, originalLength, tables);
+            }
+            return output;
+        }
+        
+        if (marker == MARKER_PIPELINE) {
+            int originalLength = readVariableLengthInt(in);
+            int offset = compressed.length - in.available();
+            if (originalLength < 0) {
+                throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
             }
             
-            // Nolasīt Huffman datus
-            int huffmanDataLength = readVariableLengthInt(in);
-            byte[] huffmanData = new byte[huffmanDataLength];
-            in.readFully(huffmanData);
+            byte[] output = new byte[originalLength];
+            CompressionPipeline.decode(compressed, offset, compressed.length - offset, output, 0, originalLength,
+                                       Context.forCurrentThread().pipelineWorkspace());
+            return output;
+        }
+        
+        if (marker == MARKER_LZ77_DICTIONARY) {
+            int originalLength = readVariableLengthInt(in);
+            if (originalLength < 0) {
+                throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
+            }
+            OWODictionary dictionary = readDictionary(in);
+            int offset = compressed.length - in.available();
             
-            // Dekodē Huffman
-            int[] huffmanDecoded = HuffmanCoding.decode(huffmanData, codebook);
+            byte[] output = new byte[originalLength];
+            decodeWithDictionary(new BitReader(compressed, offset, compressed.length - offset),
+                                 dictionary, output, 0, originalLength, Context.forCurrentThread().decodingTables());
+            return output;
+        }
+        
+        if (marker == MARKER_LZ77_STATIC) {
+            int originalLength = readVariableLengthInt(in);
+            if (originalLength < 0) {
+                throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
+            }
+            StaticHuffmanTable table = readStaticTable(in);
+            OWODictionary dictionary = readOptionalDictionary(in);
+            int offset = compressed.length - in.available();
             
-            // Konvertē no LZ77 array uz tokenus un dekompresē
-            List<LZ77Compression.LZ77Token> lz77Tokens = arrayToLZ77(huffmanDecoded);
-            return LZ77Compression.decompress(lz77Tokens);
+            byte[] output = new byte[originalLength];
+            decodeWithStaticTable(new BitReader(compressed, offset, compressed.length - offset),
+                                  table, dictionary, output, 0, originalLength);
+            return output;
+        }
+        
+        if (marker == MARKER_LZ77_PRIMED) {
+            throw new IOException("Bloks atsaucas uz iepriekšējo bloku - jādekodē caur OWOInputStream");
+        }
+        
+        // Vecie formāti (marker 1/2/3): Huffman dekodēts LZ77 masīvs
+        if (marker == MARKER_LZ77_CANONICAL || marker == MARKER_LZ77_CHARS || marker == MARKER_LZ77_BYTES) {
+            List<LZ77Compression.LZ77Token> lz77Tokens =
+                arrayToLZ77(readLegacyTokens(in, marker, compressed, compressed.length));
+            if (marker == MARKER_LZ77_CHARS) {
+                // Vecais formāts glabāja UTF-16 simbolus
+                return LZ77Compression.decompress(lz77Tokens).getBytes("UTF-8");
+            }
+            return LZ77Compression.decompressToBytes(lz77Tokens);
         }
         
         throw new IOException("Nezināms kompresijas marker: " + marker);
     }
     
     /**
-     * Konvertē LZ77 tokenus uz masīvu
+     * Nolasa vecā formāta bloka LZ77 masīvu (trijnieki offset, garums, nākamais simbols)
+     * @param in Plūsma uzreiz aiz marķiera
+     * @param marker MARKER_LZ77_CHARS, MARKER_LZ77_BYTES vai MARKER_LZ77_CANONICAL
+     * @param compressed Buferis, no kura lasa in
+     * @param end Bloka beigas buferī
+     */
+    private static int[] readLegacyTokens(DataInputStream in, int marker, byte[] compressed, int end)
+            throws IOException {
+        // Viena alfabēta kanoniskais Huffman + LZ77
+        if (marker == MARKER_LZ77_CANONICAL) {
+            int symbolCount = readVariableLengthInt(in);
+            int offset = end - in.available();
+            if (symbolCount < 0 || (long) symbolCount > (long) (end - offset) * 8) {
+                throw new IOException("Nederīgs simbolu skaits: " + symbolCount);
+            }
+            
+            BitReader reader = new BitReader(compressed, offset, end - offset);
+            return HuffmanCoding.decode(reader, symbolCount);
+        }
+        
+        // Vecā formāta kompresēts fails (Huffman ar pilnu kodeksu + LZ77)
+        // Nolasīt kodeksu
+        int codebookSize = readVariableLengthInt(in);
+        int[] keys = new int[codebookSize];
+        int[] entryCodes = new int[codebookSize];
+        byte[] entryLengths = new byte[codebookSize];
+        int maxKey = 0;
+        
+        byte[] codeBytes = new byte[(HuffmanCoding.MAX_LEGACY_CODE_LENGTH + 7) / 8];
+        for (int i = 0; i < codebookSize; i++) {
+            keys[i] = readVariableLengthInt(in);
+            int codeLength = readVariableLengthInt(in);
+            if (codeLength < 1 || codeLength > HuffmanCoding.MAX_LEGACY_CODE_LENGTH) {
+                throw new IOException("Neatbalstīts Huffman koda garums: " + codeLength);
+            }
+            
+            int codeByteCount = (codeLength + 7) / 8;
+            in.readFully(codeBytes, 0, codeByteCount);
+            entryCodes[i] = new BitReader(codeBytes, 0, codeByteCount).readBits(codeLength);
+            entryLengths[i] = (byte) codeLength;
+            maxKey = Math.max(maxKey, keys[i]);
+        }
+        
+        // Kodi pēc simbola
+        int[] codes = new int[maxKey + 1];
+        byte[] codeLengths = new byte[maxKey + 1];
+        for (int i = 0; i < codebookSize; i++) {
+            codes[keys[i]] = entryCodes[i];
+            codeLengths[keys[i]] = entryLengths[i];
+        }
+        
+        // Nolasīt Huffman datus
+        int huffmanDataLength = readVariableLengthInt(in);
+        byte[] huffmanData = new byte[huffmanDataLength];
+        in.readFully(huffmanData);
+        
+        // Dekodē Huffman
+        return HuffmanCoding.decode(huffmanData, codes, codeLengths);
+    }
+    
+    /**
+     * Vecā formāta bloka dekompresētais garums - LZ77 masīvs tiek dekodēts, bet atbilstības netiek kopētas
      */
-    private static int[] lz77ToArray(List<LZ77Compression.LZ77Token> tokens) {
-        List<Integer> result = new ArrayList<>();
-        for (LZ77Compression.LZ77Token token : tokens) {
-            result.add(token.offset);
-            result.add(token.length);
-            result.add((int) token.nextChar);
+    private static int legacyLength(byte[] compressed, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed, offset, length));
+        int marker = in.readByte();
+        if (marker != MARKER_LZ77_CANONICAL && marker != MARKER_LZ77_CHARS && marker != MARKER_LZ77_BYTES) {
+            throw new IOException("Nezināms kompresijas marker: " + marker);
+        }
+        int[] array = readLegacyTokens(in, marker, compressed, offset + length);
+        if (marker == MARKER_LZ77_CHARS) {
+            // UTF-8 garums atkarīgs no UTF-16 simboliem - tos jāatjauno
+            return LZ77Compression.decompress(arrayToLZ77(array)).getBytes("UTF-8").length;
         }
-        return result.stream().mapToInt(i -> i).toArray();
+        long size = 0;
+        for (int i = 0; i + 2 < array.length; i += 3) {
+            size += array[i + 1] + ((char) array[i + 2] != LZ77Compression.NO_NEXT_BYTE ? 1 : 0);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Nederīgs oriģinālais garums: " + size);
+        }
+        return (int) size;
     }
     
     /**
-     * Konvertē masīvu uz LZ77 tokenus
+     * Dekompresē visu OWO3 failu, neatkarīgos blokus dekodējot paralēli uz ForkJoinPool
+     * @param data OWO3 faila saturs (ar header)
+     * @return Oriģinālie baiti
      */
-    private static List<LZ77Compression.LZ77Token> arrayToLZ77(int[] array) {
-        List<LZ77Compression.LZ77Token> result = new ArrayList<>();
-        for (int i = 0; i < array.length; i += 3) {
-            if (i + 2 < array.length) {
-                result.add(new LZ77Compression.LZ77Token(
-                    array[i],
-                    array[i + 1],
-                    (char) array[i + 2]
-                ));
+    public static byte[] decompressParallel(byte[] data) throws IOException {
+        return decompressParallel(data, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Dekompresē visu OWO3 failu paralēli
+     * Neatkarīgie bloki tiek dekodēti vienlaikus iepriekš izmērītā buferī, katrs savā apgabalā;
+     * bloki ar atsaucēm uz iepriekšējo bloku (setPrimedWindow) - pēc tam secīgi
+     * @param data OWO3 faila saturs (ar header)
+     * @param executor Izpildītājs bloku dekodēšanai
+     * @return Oriģinālie baiti
+     * @throws IOException Ja fails ir bojāts
+     */
+    public static byte[] decompressParallel(byte[] data, Executor executor) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte[] header = new byte[4];
+        in.readFully(header);
+        if (!new String(header, "UTF-8").equals(OWOOutputStream.MAGIC_HEADER)) {
+            throw new IOException("Nederīgs OWO faila formāts");
+        }
+        
+        // Bloku robežas no konteinera galvenēm
+        List<BlockRecord> blocks = new ArrayList<>();
+        long totalLength = 0;
+        int originalLength;
+        while ((originalLength = in.readInt()) != 0) {
+            int compressedLength = in.readInt();
+            int offset = data.length - in.available();
+            if (originalLength < 0 || compressedLength < 1 || compressedLength > in.available()) {
+                throw new IOException("Nederīga bloka galvene: " + originalLength + "/" + compressedLength);
             }
+            blocks.add(new BlockRecord(offset, compressedLength, (int) totalLength, originalLength));
+            totalLength += originalLength;
+            if (totalLength > Integer.MAX_VALUE - 8) {
+                throw new IOException("Dekompresētie dati neietilpst masīvā: " + totalLength);
+            }
+            in.skipBytes(compressedLength);
         }
-        return result;
+        
+        byte[] output = new byte[(int) totalLength];
+        List<FutureTask<Void>> tasks = new ArrayList<>();
+        for (BlockRecord block : blocks) {
+            if (data[block.offset] != MARKER_LZ77_PRIMED) {
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    decompressBlock(data, block.offset, block.compressedLength, output,
+                                    block.outputPos, block.outputPos, block.originalLength,
+                                    Context.forCurrentThread().decodingTables());
+                    return null;
+                });
+                executor.execute(task);
+                tasks.add(task);
+            }
+        }
+        for (FutureTask<Void> task : tasks) {
+            await(task);
+        }
+        
+        // Bloki ar vēsturi - kad visi iepriekšējie dati jau ir izvadē
+        HuffmanCoding.DecodingTables tables = Context.forCurrentThread().decodingTables();
+        for (BlockRecord block : blocks) {
+            if (data[block.offset] == MARKER_LZ77_PRIMED) {
+                decompressBlock(data, block.offset, block.compressedLength, output, block.outputPos,
+                                Math.max(0, block.outputPos - LZ77Compression.WINDOW_SIZE), block.originalLength,
+                                tables);
+            }
+        }
+        return output;
     }
     
     /**
-     * Konvertē bitus uz baitiem
+     * Gaida bloka uzdevuma rezultātu, atritinot ExecutionException uz sākotnējo kļūdu
      */
-    private static byte[] codeToBytes(String bits) {
-        int byteCount = (bits.length() + 7) / 8;
-        byte[] bytes = new byte[byteCount];
-        for (int i = 0; i < bits.length(); i++) {
-            if (bits.charAt(i) == '1') {
-                bytes[i / 8] |= (1 << (7 - (i % 8)));
+    static <T> T await(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bloka apstrāde pārtraukta");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Bloka apstrāde neizdevās", cause);
+        }
+    }
+    
+    /**
+     * Dekompresē src atlikušos baitus (viens bloks no compress) uz dst
+     * @param src Kompresētie dati, pozīcija tiek pārvietota līdz limit
+     * @param dst Izvade ar vismaz decompressedLength(src) brīviem baitiem
+     * @return Dekompresēto baitu skaits
+     * @throws IOException Ja dati ir bojāti vai dst nepietiek vietas
+     */
+    public static int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+        return Context.forCurrentThread().decompress(src, dst);
+    }
+    
+    /**
+     * Nolasa dekompresēto garumu no bloka galvenes, nemainot src pozīciju
+     * @param src Kompresētie dati no compress
+     * @return Oriģinālo baitu skaits
+     * @throws IOException Ja galvene ir bojāta
+     */
+    public static int decompressedLength(ByteBuffer src) throws IOException {
+        byte[] header = new byte[Math.min(src.remaining(), 6)];  // Marker + garākais varint
+        src.get(src.position(), header);
+        int originalLength = readOriginalLength(header, 0, header.length);
+        if (originalLength >= 0) {
+            return originalLength;
+        }
+        byte[] compressed = toArray(src);
+        return legacyLength(compressed, 0, compressed.length);
+    }
+    
+    private static byte[] toArray(ByteBuffer src) {
+        byte[] data = new byte[src.remaining()];
+        src.get(src.position(), data);
+        return data;
+    }
+    
+    /**
+     * @return Oriģinālais garums no marker 0/4/5/6/7/8/9/10 galvenes vai -1 vecajiem marķieriem
+     * @throws IOException Ja galvene ir bojāta vai bloks atsaucas uz iepriekšējo bloku
+     */
+    private static int readOriginalLength(byte[] compressed, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed, offset, length));
+        int marker = in.readByte();
+        int originalLength;
+        if (marker == MARKER_STORED) {
+            originalLength = in.readInt();
+        } else if (marker == MARKER_LZ77_SPLIT || marker == MARKER_MTF_RLE || marker == MARKER_BWT
+                   || marker == MARKER_PIPELINE || marker == MARKER_LZ77_DICTIONARY
+                   || marker == MARKER_LZ77_STATIC) {
+            originalLength = readVariableLengthInt(in);
+        } else if (marker == MARKER_LZ77_PRIMED) {
+            throw new IOException("Bloks atsaucas uz iepriekšējo bloku - jādekodē caur OWOInputStream");
+        } else {
+            return -1;
+        }
+        if (originalLength < 0) {
+            throw new IOException("Nederīgs oriģinālais garums: " + originalLength);
+        }
+        return originalLength;
+    }
+    
+    /**
+     * Dekompresē vienu bloku tieši output[outputPos, outputPos + originalLength)
+     * Marker 5 blokiem output[historyStart, outputPos) jāsatur iepriekšējo bloku beigas
+     * @param compressed Buferis ar kompresēto bloku
+     * @param offset Bloka sākums buferī
+     * @param length Bloka garums
+     * @param output Izvades buferis
+     * @param outputPos Pozīcija, kur rakstīt bloku
+     * @param historyStart Agrākā vēstures pozīcija izvades buferī
+     * @param originalLength Bloka oriģinālais garums no konteinera
+     * @param tables Atkārtoti izmantojamās dekodēšanas tabulas (viena pavediena)
+     * @throws IOException Ja bloks ir bojāts vai garums nesakrīt
+     */
+    static void decompressBlock(byte[] compressed, int offset, int length, byte[] output, int outputPos,
+                                int historyStart, int originalLength, HuffmanCoding.DecodingTables tables)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed, offset, length));
+        int marker = in.readByte();
+        
+        if (marker == MARKER_STORED) {
+            int storedLength = in.readInt();
+            if (storedLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + storedLength + " != " + originalLength);
+            }
+            in.readFully(output, outputPos, originalLength);
+            return;
+        }
+        
+        if (marker == MARKER_LZ77_SPLIT || marker == MARKER_LZ77_PRIMED) {
+            int blockLength = readVariableLengthInt(in);
+            if (blockLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + blockLength + " != " + originalLength);
+            }
+            int dataOffset = offset + length - in.available();
+            BitReader reader = new BitReader(compressed, dataOffset, offset + length - dataOffset);
+            int firstReference = marker == MARKER_LZ77_PRIMED ? historyStart : outputPos;
+            LZ77HuffmanCoder.decode(reader, output, firstReference, outputPos, outputPos + originalLength, tables);
+            return;
+        }
+        
+        if (marker == MARKER_MTF_RLE || marker == MARKER_BWT) {
+            int blockLength = readVariableLengthInt(in);
+            if (blockLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + blockLength + " != " + originalLength);
+            }
+            int dataOffset = offset + length - in.available();
+            BitReader reader = new BitReader(compressed, dataOffset, offset + length - dataOffset);
+            if (marker == MARKER_BWT) {
+                MTFHuffmanCoder.decodeBurrowsWheeler(reader, output, outputPos, outputPos + originalLength, tables);
+            } else {
+                MTFHuffmanCoder.decode(reader, output, outputPos, outputPos + originalLength, tables);
+            }
+            return;
+        }
+        
+        if (marker == MARKER_PIPELINE) {
+            int blockLength = readVariableLengthInt(in);
+            if (blockLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + blockLength + " != " + originalLength);
+            }
+            int dataOffset = offset + length - in.available();
+            CompressionPipeline.decode(compressed, dataOffset, offset + length - dataOffset,
+                                       output, outputPos, originalLength, Context.forCurrentThread().pipelineWorkspace());
+            return;
+        }
+        
+        if (marker == MARKER_LZ77_DICTIONARY) {
+            int blockLength = readVariableLengthInt(in);
+            if (blockLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + blockLength + " != " + originalLength);
+            }
+            OWODictionary dictionary = readDictionary(in);
+            int dataOffset = offset + length - in.available();
+            BitReader reader = new BitReader(compressed, dataOffset, offset + length - dataOffset);
+            decodeWithDictionary(reader, dictionary, output, outputPos, originalLength, tables);
+            return;
+        }
+        
+        if (marker == MARKER_LZ77_STATIC) {
+            int blockLength = readVariableLengthInt(in);
+            if (blockLength != originalLength) {
+                throw new IOException("Bloka garums nesakrīt: " + blockLength + " != " + originalLength);
+            }
+            StaticHuffmanTable table = readStaticTable(in);
+            OWODictionary dictionary = readOptionalDictionary(in);
+            int dataOffset = offset + length - in.available();
+            BitReader reader = new BitReader(compressed, dataOffset, offset + length - dataOffset);
+            decodeWithStaticTable(reader, table, dictionary, output, outputPos, originalLength);
+            return;
+        }
+        
+        // Vecie marķieri - caur pilno dekompresiju
+        byte[] decoded = decompress(Arrays.copyOfRange(compressed, offset, offset + length));
+        if (decoded.length != originalLength) {
+            throw new IOException("Bloka garums nesakrīt: " + decoded.length + " != " + originalLength);
+        }
+        System.arraycopy(decoded, 0, output, outputPos, originalLength);
+    }
+    
+    /**
+     * Nolasa vārdnīcas ID un atrod reģistrēto vārdnīcu
+     */
+    private static OWODictionary readDictionary(DataInputStream in) throws IOException {
+        return registeredDictionary(readVariableLengthInt(in));
+    }
+    
+    /**
+     * Nolasa marker 10 vārdnīcas ID; 0 - bez vārdnīcas
+     */
+    private static OWODictionary readOptionalDictionary(DataInputStream in) throws IOException {
+        int id = readVariableLengthInt(in);
+        return id == 0 ? null : registeredDictionary(id);
+    }
+    
+    private static OWODictionary registeredDictionary(int id) throws IOException {
+        OWODictionary dictionary = OWODictionary.forId(id);
+        if (dictionary == null) {
+            throw new IOException("Nezināma vārdnīca: " + id + " (jāreģistrē ar OWODictionary.register)");
+        }
+        return dictionary;
+    }
+    
+    /**
+     * Nolasa iebūvētās tabulas ID
+     */
+    private static StaticHuffmanTable readStaticTable(DataInputStream in) throws IOException {
+        int id = readVariableLengthInt(in);
+        StaticHuffmanTable table = StaticHuffmanTable.forId(id);
+        if (table == null) {
+            throw new IOException("Nezināma Huffman tabula: " + id);
         }
-        return bytes;
+        return table;
+    }
+    
+    /**
+     * Dekodē marker 10 bloku tieši output; ar vārdnīcu atbilstības tajā dekoderis nolasa no tās satura
+     */
+    private static void decodeWithStaticTable(BitReader reader, StaticHuffmanTable table, OWODictionary dictionary,
+                                              byte[] output, int outputPos, int length) {
+        LZ77HuffmanCoder.decode(reader, table, dictionary == null ? null : dictionary.content(), output,
+                                outputPos, outputPos, outputPos + length);
+    }
+    
+    /**
+     * Dekodē marker 9 bloku tieši output; atbilstības, kas sniedzas vārdnīcā, dekoderis nolasa no tās satura
+     */
+    private static void decodeWithDictionary(BitReader reader, OWODictionary dictionary, byte[] output,
+                                             int outputPos, int length, HuffmanCoding.DecodingTables tables) {
+        LZ77HuffmanCoder.decode(reader, dictionary.content(), output, outputPos, outputPos,
+                                outputPos + length, tables);
     }
     
     /**
-     * Konvertē baitus uz bitiem
+     * Atkārtoti izmantojams kompresijas konteksts: hash ķēžu meklētājs, tokenu buferis,
+     * Huffman histogrammas un tabulas, optimālās parsēšanas masīvi un izvades buferis
+     * Stāvoklis tiek atiestatīts bez tīrīšanas, tāpēc daudzām mazām ievadēm stabilā stāvoklī
+     * kompresija gandrīz neizdala atmiņu (compress(ByteBuffer, ByteBuffer) ar heap buferiem - nemaz)
+     * Konteksts nav drošs vienlaicīgai lietošanai; katram pavedienam savs - skatīt forCurrentThread()
      */
-    private static String bytesToCode(byte[] bytes, int bitLength) {
-        StringBuilder bits = new StringBuilder();
-        for (int i = 0; i < bitLength; i++) {
-            int byteIndex = i / 8;
-            int bitIndex = 7 - (i % 8);
-            if ((bytes[byteIndex] & (1 << bitIndex)) != 0) {
-                bits.append('1');
+    public static final class Context {
+        // Lielākām ievadēm pagaidu buferi, lai konteksts ilgstoši neturētu lielus masīvus
+        private static final int MAX_RETAINED_LENGTH = 256 * 1024;
+        private static final ThreadLocal<Context> THREAD_CONTEXT = ThreadLocal.withInitial(Context::new);
+        
+        private final LZ77Compression.Workspace workspace = new LZ77Compression.Workspace();
+        private final LZ77TokenBuffer tokens = new LZ77TokenBuffer();
+        private byte[] scratch = new byte[0];
+        private byte[] directInput = new byte[0];  // Kopija direct ievades buferim
+        private byte[] dictionaryInput = new byte[0]; // [vārdnīca][ievade]
+        private MTFHuffmanCoder.Workspace mtfWorkspace;
+        private HuffmanCoding.DecodingTables decodingTables;
+        private CompressionPipeline.Workspace pipelineWorkspace;
+        private BitWriter sampleWriter;  // AUTO izmēģinājumu izvade
+        
+        /**
+         * @return Pašreizējā pavediena konteksts (tiek izveidots pirmajā izsaukumā)
+         */
+        public static Context forCurrentThread() {
+            return THREAD_CONTEXT.get();
+        }
+        
+        /**
+         * Kompresē patvaļīgus baitus noklusējuma līmenī - izvade tāda pati kā OWOCompressor.compress(byte[])
+         */
+        public byte[] compress(byte[] input) {
+            return compress(input, LZ77Compression.DEFAULT_LEVEL);
+        }
+        
+        /**
+         * Kompresē patvaļīgus baitus norādītajā līmenī; vienīgā izdalītā atmiņa ir rezultāta masīvs
+         * @param input Ievades baiti
+         * @param level Kompresijas līmenis (1-9)
+         * @return Kompresēti baiti
+         */
+        public byte[] compress(byte[] input, int level) {
+            return compress(input, level, Strategy.LZ77);
+        }
+        
+        /**
+         * Kompresē patvaļīgus baitus ar norādīto stratēģiju
+         * @param input Ievades baiti
+         * @param level Kompresijas līmenis (1-9)
+         * @param strategy Bloka kodēšanas stratēģija
+         * @return Kompresēti baiti
+         */
+        public byte[] compress(byte[] input, int level, Strategy strategy) {
+            BitWriter out = new BitWriter(scratch, 0);
+            writeBlock(input, 0, 0, input.length, LZ77Compression.forLevel(level), strategy, null, out,
+                       retained(input.length));
+            int size = out.finish();
+            retainScratch(out.buffer(), input.length);
+            return Arrays.copyOf(out.buffer(), size);
+        }
+        
+        /**
+         * @see OWOCompressor#compress(byte[], int, OWODictionary)
+         */
+        public byte[] compress(byte[] input, int level, OWODictionary dictionary) {
+            BitWriter out = new BitWriter(scratch, 0);
+            writeBlock(input, 0, 0, input.length, LZ77Compression.forLevel(level), Strategy.LZ77,
+                       Objects.requireNonNull(dictionary), out, retained(input.length));
+            int size = out.finish();
+            retainScratch(out.buffer(), input.length);
+            return Arrays.copyOf(out.buffer(), size);
+        }
+        
+        /**
+         * @see OWOCompressor#compress(byte[], CompressionPipeline)
+         */
+        public byte[] compress(byte[] input, CompressionPipeline pipeline) {
+            BitWriter out = new BitWriter(scratch, 0);
+            writePipelineBlock(input, 0, input.length, pipeline, out, retained(input.length));
+            int size = out.finish();
+            retainScratch(out.buffer(), input.length);
+            return Arrays.copyOf(out.buffer(), size);
+        }
+        
+        /**
+         * Kompresē src atlikušos baitus uz dst noklusējuma līmenī
+         * @see OWOCompressor#compress(ByteBuffer, ByteBuffer, int)
+         */
+        public int compress(ByteBuffer src, ByteBuffer dst) {
+            return compress(src, dst, LZ77Compression.DEFAULT_LEVEL);
+        }
+        
+        /**
+         * @see OWOCompressor#compress(ByteBuffer, ByteBuffer, int)
+         */
+        public int compress(ByteBuffer src, ByteBuffer dst, int level) {
+            LZ77Compression.LevelConfig config = LZ77Compression.forLevel(level);
+            int length = src.remaining();
+            int bound = maxCompressedLength(length);
+            if (dst.remaining() < bound) {
+                throw new IllegalArgumentException("Mērķa buferī nepietiek vietas: " + dst.remaining() + " < " + bound);
+            }
+            
+            byte[] data = src.hasArray() ? src.array() : directInput(src);
+            int start = src.hasArray() ? src.arrayOffset() + src.position() : 0;
+            
+            boolean heapOutput = dst.hasArray() && !dst.isReadOnly();
+            int outStart = heapOutput ? dst.arrayOffset() + dst.position() : 0;
+            BitWriter out = heapOutput ? new BitWriter(dst.array(), outStart, outStart + bound)
+                                       : new BitWriter(scratch, 0);
+            // Vēsture sākas ar src pozīciju - baiti pirms tās nepieder kompresējamajiem datiem
+            writeBlock(data, start, start, start + length, config, Strategy.LZ77, null, out, retained(length));
+            int size = out.finish() - outStart;
+            
+            if (heapOutput && out.buffer() == dst.array()) {
+                dst.position(dst.position() + size);
             } else {
-                bits.append('0');
+                // dst ir direct vai izvade pārsniedza limit un BitWriter pārgāja uz savu buferi
+                dst.put(out.buffer(), outStart, size);
+                if (!heapOutput) {
+                    retainScratch(out.buffer(), length);
+                }
             }
+            src.position(src.limit());
+            return size;
         }
-        return bits.toString();
+        
+        /**
+         * Dekompresē src atlikušos baitus uz dst; direct buferiem izmanto konteksta ievades un izvades buferus
+         * @see OWOCompressor#decompress(ByteBuffer, ByteBuffer)
+         */
+        public int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+            int length = src.remaining();
+            byte[] compressed = src.hasArray() ? src.array() : directInput(src);
+            int offset = src.hasArray() ? src.arrayOffset() + src.position() : 0;
+            
+            int originalLength = readOriginalLength(compressed, offset, length);
+            if (originalLength < 0) {
+                // Vecie marķieri - caur pilno dekompresiju
+                byte[] decoded = OWOCompressor.decompress(Arrays.copyOfRange(compressed, offset, offset + length));
+                if (dst.remaining() < decoded.length) {
+                    throw new IOException("Mērķa buferī nepietiek vietas: " + dst.remaining() + " < " + decoded.length);
+                }
+                dst.put(decoded);
+                src.position(src.limit());
+                return decoded.length;
+            }
+            if (dst.remaining() < originalLength) {
+                throw new IOException("Mērķa buferī nepietiek vietas: " + dst.remaining() + " < " + originalLength);
+            }
+            
+            if (dst.hasArray() && !dst.isReadOnly()) {
+                int outputPos = dst.arrayOffset() + dst.position();
+                decompressBlock(compressed, offset, length, dst.array(), outputPos, outputPos, originalLength,
+                                decodingTables());
+                dst.position(dst.position() + originalLength);
+            } else {
+                byte[] output = scratch.length >= originalLength ? scratch : new byte[originalLength];
+                retainScratch(output, originalLength);
+                decompressBlock(compressed, offset, length, output, 0, 0, originalLength, decodingTables());
+                dst.put(output, 0, originalLength);
+            }
+            src.position(src.limit());
+            return originalLength;
+        }
+        
+        /**
+         * @see OWOCompressor#compressRecord(byte[], int, int, int, Strategy, OWODictionary, byte[])
+         */
+        ByteBuffer compressRecord(byte[] data, int start, int end, int level, Strategy strategy,
+                                  OWODictionary dictionary, byte[] target) {
+            return compressRecord(data, start, end, LZ77Compression.forLevel(level), strategy, dictionary, null,
+                                  target);
+        }
+        
+        /**
+         * @see OWOCompressor#compressRecord(byte[], int, int, CompressionPipeline, byte[])
+         */
+        ByteBuffer compressRecord(byte[] data, int start, int end, CompressionPipeline pipeline, byte[] target) {
+            return compressRecord(data, start, end, null, null, null, pipeline, target);
+        }
+        
+        private ByteBuffer compressRecord(byte[] data, int start, int end, LZ77Compression.LevelConfig config,
+                                          Strategy strategy, OWODictionary dictionary, CompressionPipeline pipeline,
+                                          byte[] target) {
+            BitWriter out = new BitWriter(target, 0);
+            out.writeBits(0, 32);
+            out.writeBits(0, 32);
+            if (pipeline != null) {
+                writePipelineBlock(data, start, end, pipeline, out, retained(end - start));
+            } else {
+                writeBlock(data, 0, start, end, config, strategy, dictionary, out, retained(end - start));
+            }
+            
+            int size = out.finish();
+            byte[] record = out.buffer();
+            writeInt(record, 0, end - start);
+            writeInt(record, 4, size - 8);
+            return ByteBuffer.wrap(record, 0, size);
+        }
+        
+        /**
+         * Nokopē direct bufera src atlikušos baitus (nemainot pozīciju) konteksta ievades buferī
+         */
+        private byte[] directInput(ByteBuffer src) {
+            int length = src.remaining();
+            byte[] data = directInput.length >= length ? directInput : new byte[length];
+            if (length <= MAX_RETAINED_LENGTH) {
+                directInput = data;
+            }
+            src.get(src.position(), data, 0, length);
+            return data;
+        }
+        
+        private byte[] dictionaryBuffer(int length) {
+            if (dictionaryInput.length >= length) {
+                return dictionaryInput;
+            }
+            byte[] buffer = new byte[length];
+            if (length <= MAX_RETAINED_LENGTH + OWODictionary.MAX_SIZE) {
+                dictionaryInput = buffer;
+            }
+            return buffer;
+        }
+        
+        private MTFHuffmanCoder.Workspace mtfWorkspace() {
+            if (mtfWorkspace == null) {
+                mtfWorkspace = new MTFHuffmanCoder.Workspace();
+            }
+            return mtfWorkspace;
+        }
+        
+        /**
+         * @return Šī pavediena dekodēšanas tabulas, kas tiek pārbūvētas katram blokam
+         */
+        HuffmanCoding.DecodingTables decodingTables() {
+            if (decodingTables == null) {
+                decodingTables = new HuffmanCoding.DecodingTables();
+            }
+            return decodingTables;
+        }
+        
+        /**
+         * @return AUTO izlases rakstītājs; buferis paliek starp blokiem (līdz AUTO_BWT_SAMPLE_LENGTH + STORED_OVERHEAD)
+         */
+        private BitWriter sampleWriter() {
+            if (sampleWriter == null) {
+                sampleWriter = new BitWriter(AUTO_BWT_SAMPLE_LENGTH + STORED_OVERHEAD);
+            }
+            return sampleWriter;
+        }
+        
+        /**
+         * @return Posmu ķēdes masīvi, kas izmanto šī konteksta LZ77, MTF un dekodēšanas masīvus
+         */
+        CompressionPipeline.Workspace pipelineWorkspace() {
+            if (pipelineWorkspace == null) {
+                pipelineWorkspace = new CompressionPipeline.Workspace(workspace, tokens, mtfWorkspace(), decodingTables());
+            }
+            return pipelineWorkspace;
+        }
+        
+        /**
+         * @return Šis konteksts vai, lielām ievadēm, jauns pagaidu konteksts
+         */
+        private Context retained(int length) {
+            return length <= MAX_RETAINED_LENGTH ? this : new Context();
+        }
+        
+        private void retainScratch(byte[] buffer, int length) {
+            if (length <= MAX_RETAINED_LENGTH) {
+                scratch = buffer;
+            }
+        }
+    }
+    
+    /**
+     * Bloka atrašanās vieta OWO3 failā un dekompresētajos datos
+     */
+    private static class BlockRecord {
+        final int offset;
+        final int compressedLength;
+        final int outputPos;
+        final int originalLength;
+        
+        BlockRecord(int offset, int compressedLength, int outputPos, int originalLength) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.outputPos = outputPos;
+            this.originalLength = originalLength;
+        }
+    }
+    
+    /**
+     * Konvertē masīvu uz LZ77 tokenus
+     */
+    private static List<LZ77Compression.LZ77Token> arrayToLZ77(int[] array) {
+        List<LZ77Compression.LZ77Token> result = new ArrayList<>();
+        for (int i = 0; i < array.length; i += 3) {
+            if (i + 2 < array.length) {
+                result.add(new LZ77Compression.LZ77Token(
+                    array[i],
+                    array[i + 1],
+                    (char) array[i + 2]
+                ));
+            }
+        }
+        return result;
     }
 }
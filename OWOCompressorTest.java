@@ -1,4 +1,5 @@
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
@@ -70,6 +71,19 @@ public class OWOCompressorTest {
             // Print summary
             printSummary(results);
             
+            testBinaryRoundTrip();
+            testStreamRoundTrip();
+            testSeekableReads();
+            testByteBufferRoundTrip();
+            testContextReuse();
+            testRunLengthEncoding();
+            testPipelines();
+            testDictionary();
+            testDictionaryTrainer();
+            testStaticTables();
+            testIncompressibleInput();
+            testAutoStrategy();
+            
         } catch (Exception e) {
             System.err.println("Kļūda: " + e.getMessage());
             e.printStackTrace();
@@ -131,6 +145,605 @@ public class OWOCompressorTest {
                                      compressionTime, decompressionTime, success);
     }
     
+    private static void testBinaryRoundTrip() throws Exception {
+        System.out.println("\nBinary round trip (NUL baiti, visas baitu vērtības, nederīgs UTF-8):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        Random random = new Random(42);
+        byte[] data = new byte[64 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            // Atkārtojošs binārs raksts ar nullēm un nejaušiem baitiem
+            data[i] = (i % 7 == 0) ? 0 : (i % 1024 < 512) ? (byte) (i % 251) : (byte) random.nextInt(256);
+        }
+        
+        for (int level = 1; level <= 9; level++) {
+            byte[] compressed = OWOCompressor.compress(data, level);
+            byte[] restored = OWOCompressor.decompress(compressed);
+            boolean success = Arrays.equals(data, restored);
+            System.out.printf("  %s level %d: %d B -> %d B%n",
+                              success ? "✓" : "✗", level, data.length, compressed.length);
+        }
+        
+        // 7 un 9 jāatšķiras no 6 un 8 arī 8 KB logā
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        int[] htmlSizes = new int[10];
+        for (int level = 6; level <= 9; level++) {
+            htmlSizes[level] = OWOCompressor.compress(html, level).length;
+        }
+        System.out.printf("  %s File2.html: level 6 %d B, 7 %d B, 8 %d B, 9 %d B%n",
+                          htmlSizes[7] < htmlSizes[6] && htmlSizes[9] < htmlSizes[8] ? "✓" : "✗",
+                          htmlSizes[6], htmlSizes[7], htmlSizes[8], htmlSizes[9]);
+        
+        // MTF + RLE un BWT stratēģijas - arī datiem ar garām nuļļu un vienādu baitu virknēm un HTML
+        byte[] runs = new byte[100000];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = (byte) ((i / 3000) % 3 == 0 ? 0 : (i / 700) * 37);
+        }
+        for (OWOCompressor.Strategy strategy : new OWOCompressor.Strategy[] {
+                OWOCompressor.Strategy.MTF_RLE, OWOCompressor.Strategy.BWT}) {
+            for (byte[] input : new byte[][] {data, runs, html}) {
+                byte[] compressed = OWOCompressor.compress(input, LZ77Compression.DEFAULT_LEVEL, strategy);
+                boolean success = Arrays.equals(input, OWOCompressor.decompress(compressed));
+                System.out.printf("  %s %s %s: %d B -> %d B%n", success ? "✓" : "✗", strategy,
+                                  input == data ? "binārs" : input == runs ? "virknes" : "File2.html",
+                                  input.length, compressed.length);
+            }
+        }
+    }
+    
+    private static void testStreamRoundTrip() throws Exception {
+        System.out.println("\nStream round trip (OWOOutputStream / OWOInputStream, mazi bloki):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] data = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        byte[] sequential = null;
+        for (int mode = 0; mode < 8; mode++) {
+            boolean parallel = (mode & 1) != 0;
+            boolean primed = mode < 4 && (mode & 2) != 0;
+            OWOCompressor.Strategy strategy = mode < 4 ? OWOCompressor.Strategy.LZ77
+                : mode < 6 ? OWOCompressor.Strategy.MTF_RLE : OWOCompressor.Strategy.BWT;
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OWOOutputStream out = new OWOOutputStream(buffer, LZ77Compression.DEFAULT_LEVEL, 16 * 1024)) {
+                out.setExecutor(parallel ? java.util.concurrent.ForkJoinPool.commonPool() : null);
+                out.setPrimedWindow(primed);
+                out.setStrategy(strategy);
+                // Dažāda izmēra rakstīšanas un flush bloka vidū
+                out.write(data, 0, 1000);
+                out.flush();
+                for (int i = 1000; i < 2000; i++) {
+                    out.write(data[i]);
+                }
+                out.write(data, 2000, data.length - 2000);
+            }
+            
+            ByteArrayOutputStream restored = new ByteArrayOutputStream();
+            try (OWOInputStream in = new OWOInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+                byte[] chunk = new byte[777];
+                int count;
+                while ((count = in.read(chunk)) > 0) {
+                    restored.write(chunk, 0, count);
+                }
+            }
+            
+            boolean success = Arrays.equals(data, restored.toByteArray())
+                && Arrays.equals(data, OWOCompressor.decompressParallel(buffer.toByteArray()));
+            // Paralēli kompresēti bloki (ar atkārtoti izmantotiem buferiem) sakrīt ar secīgajiem
+            if (parallel) {
+                success &= Arrays.equals(sequential, buffer.toByteArray());
+            } else {
+                sequential = buffer.toByteArray();
+            }
+            System.out.printf("  %s File2.html %s%s%s: %d B -> %d B%n", success ? "✓" : "✗",
+                              parallel ? "paralēli" : "secīgi", primed ? ", ar vēsturi" : "",
+                              mode >= 4 ? ", " + strategy : "",
+                              data.length, buffer.size());
+        }
+    }
+    
+    private static void testSeekableReads() throws Exception {
+        System.out.println("\nSeekable reads (SeekableOWOReader, bloku indekss):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] data = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(7);
+        for (boolean primed : new boolean[] {false, true}) {
+            File file = File.createTempFile("owo-seek", ".owo");
+            try {
+                try (OWOOutputStream out = new OWOOutputStream(new FileOutputStream(file),
+                                                               LZ77Compression.DEFAULT_LEVEL, 16 * 1024)) {
+                    out.setPrimedWindow(primed);
+                    out.write(data);
+                }
+                
+                boolean success = true;
+                try (SeekableOWOReader reader = new SeekableOWOReader(file.toPath())) {
+                    success &= reader.length() == data.length;
+                    for (int i = 0; i < 200; i++) {
+                        int position = random.nextInt(data.length);
+                        byte[] range = new byte[random.nextInt(40000) + 1];
+                        int count = reader.read(position, range, 0, range.length);
+                        success &= count == Math.min(range.length, data.length - position)
+                            && Arrays.equals(range, 0, count, data, position, position + count);
+                    }
+                    success &= reader.read(data.length, new byte[1], 0, 1) == -1;
+                }
+                System.out.printf("  %s File2.html%s: 200 nejaušas lasīšanas%n",
+                                  success ? "✓" : "✗", primed ? ", ar vēsturi" : "");
+            } finally {
+                file.delete();
+            }
+        }
+        
+        // Garāka plūsma ar vēsturi: lasīšana pēc vēstures kopijām un secīgi pa blokiem
+        byte[] large = new byte[data.length * 16];
+        for (int i = 0; i < 16; i++) {
+            System.arraycopy(data, 0, large, i * data.length, data.length);
+        }
+        File file = File.createTempFile("owo-seek", ".owo");
+        try {
+            try (OWOOutputStream out = new OWOOutputStream(new FileOutputStream(file),
+                                                           LZ77Compression.DEFAULT_LEVEL, 16 * 1024)) {
+                out.setPrimedWindow(true);
+                out.write(large);
+            }
+            
+            boolean success = true;
+            try (SeekableOWOReader reader = new SeekableOWOReader(file.toPath())) {
+                for (int i = 0; i < 40; i++) {
+                    int position = random.nextInt(large.length);
+                    byte[] range = new byte[random.nextInt(40000) + 1];
+                    int count = reader.read(position, range, 0, range.length);
+                    success &= Arrays.equals(range, 0, count, large, position, position + count);
+                }
+                byte[] restored = new byte[large.length];
+                for (int position = 0; position < large.length; position += 5000) {
+                    reader.read(position, restored, position, Math.min(5000, large.length - position));
+                }
+                success &= Arrays.equals(restored, large);
+            }
+            System.out.printf("  %s %d B ar vēsturi, %d bloki: nejaušas un secīgas lasīšanas%n",
+                              success ? "✓" : "✗", large.length, large.length / (16 * 1024) + 1);
+        } finally {
+            file.delete();
+        }
+    }
+    
+    private static void testByteBufferRoundTrip() throws Exception {
+        System.out.println("\nByteBuffer round trip (heap ar nobīdi, direct, nekompresējami dati):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        byte[] noise = new byte[20000];
+        new Random(3).nextBytes(noise);
+        for (byte[] data : new byte[][] {html, noise}) {
+            for (boolean direct : new boolean[] {false, true}) {
+                int bound = OWOCompressor.maxCompressedLength(data.length);
+                ByteBuffer src = direct ? ByteBuffer.allocateDirect(data.length + 200) : ByteBuffer.allocate(data.length + 200);
+                ByteBuffer dst = direct ? ByteBuffer.allocateDirect(bound + 200) : ByteBuffer.allocate(bound + 200);
+                // Dati buferu vidū - baiti ārpus [position, limit) nedrīkst tikt izmantoti vai mainīti
+                src.position(100);
+                src.put(data).flip().position(100);
+                dst.position(100).limit(100 + bound);
+                
+                int size = OWOCompressor.compress(src, dst);
+                dst.flip().position(100);
+                ByteBuffer restored = direct ? ByteBuffer.allocateDirect(data.length + 50)
+                                             : ByteBuffer.allocate(data.length + 50);
+                restored.position(50);
+                boolean success = size <= bound && !src.hasRemaining()
+                    && OWOCompressor.decompressedLength(dst) == data.length
+                    && OWOCompressor.decompress(dst, restored) == data.length
+                    && restored.position() == 50 + data.length;
+                byte[] copy = new byte[data.length];
+                restored.get(50, copy);
+                success &= Arrays.equals(data, copy);
+                System.out.printf("  %s %s %s: %d B -> %d B (robeža %d B)%n", success ? "✓" : "✗",
+                                  data == html ? "File2.html" : "nejauši baiti", direct ? "direct" : "heap",
+                                  data.length, size, bound);
+            }
+        }
+        
+        // Vecais marker 3 bloks: garums nav galvenē, tāpēc to nosaka no LZ77 masīva
+        int[] tokens = {0, 0, 'a', 1, 5, 'b', 2, 3, LZ77Compression.NO_NEXT_BYTE};
+        BitWriter legacy = new BitWriter(64);
+        legacy.writeBits(3, 8);
+        legacy.writeBits(tokens.length, 8);
+        HuffmanCoding.encode(tokens, legacy);
+        int legacySize = legacy.finish();
+        ByteBuffer legacySrc = ByteBuffer.allocateDirect(legacySize).put(legacy.buffer(), 0, legacySize).flip();
+        ByteBuffer legacyDst = ByteBuffer.allocateDirect(16);
+        boolean success = OWOCompressor.decompressedLength(legacySrc) == 10
+            && OWOCompressor.decompress(legacySrc, legacyDst) == 10 && legacyDst.flip().remaining() == 10;
+        byte[] legacyData = new byte[10];
+        legacyDst.get(legacyData);
+        success &= new String(legacyData, "UTF-8").equals("aaaaaababa");
+        System.out.printf("  %s vecais marker 3 bloks: decompressedLength bez dekompresijas%n", success ? "✓" : "✗");
+    }
+    
+    private static void testContextReuse() throws Exception {
+        System.out.println("\nContext reuse (viens konteksts, dažādi izmēri un līmeņi):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(11);
+        OWOCompressor.Context context = new OWOCompressor.Context();
+        boolean success = true;
+        int calls = 0;
+        for (int i = 0; i < 300; i++) {
+            int length = random.nextInt(i % 50 == 0 ? html.length : 20000);
+            int offset = random.nextInt(html.length - length + 1);
+            byte[] page = Arrays.copyOfRange(html, offset, offset + length);
+            int level = 1 + random.nextInt(9);
+            
+            // Atkārtoti izmantotam kontekstam jādod tieši tāda pati izvade kā jaunam
+            byte[] reused = context.compress(page, level);
+            byte[] fresh = new OWOCompressor.Context().compress(page, level);
+            success &= Arrays.equals(reused, fresh) && Arrays.equals(page, OWOCompressor.decompress(reused));
+            calls++;
+        }
+        System.out.printf("  %s %d izsaukumi ar vienu kontekstu%n", success ? "✓" : "✗", calls);
+    }
+    
+    private static void testRunLengthEncoding() throws Exception {
+        System.out.println("\nRun-length encoding (primitīvie buferi, neierobežotas virknes):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        // Virknes garumā 1, 255, 256, 20000 un 100000 - pāri varint garuma robežām
+        byte[] data = new byte[1 + 255 + 256 + 20000 + 100000];
+        int pos = 0;
+        int value = 7;
+        for (int run : new int[] {1, 255, 256, 20000, 100000}) {
+            Arrays.fill(data, pos, pos + run, (byte) value);
+            pos += run;
+            value = value == 0 ? 7 : 0;
+        }
+        byte[] encoded = new byte[RunLengthEncoding.encodedLength(data, 0, data.length)];
+        int encodedEnd = RunLengthEncoding.encode(data, 0, data.length, encoded, 0);
+        byte[] decoded = new byte[RunLengthEncoding.decodedLength(encoded, 0, encodedEnd)];
+        int decodedEnd = RunLengthEncoding.decode(encoded, 0, encodedEnd, decoded, 0);
+        boolean success = encodedEnd == encoded.length && decodedEnd == data.length && Arrays.equals(data, decoded);
+        System.out.printf("  %s baiti: %d B -> %d B%n", success ? "✓" : "✗", data.length, encoded.length);
+        
+        int[] values = new int[data.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data[i] * 1000;
+        }
+        int[] pairs = new int[RunLengthEncoding.encodedLength(values, 0, values.length)];
+        RunLengthEncoding.encode(values, 0, values.length, pairs, 0);
+        int[] restored = new int[RunLengthEncoding.decodedLength(pairs, 0, pairs.length)];
+        RunLengthEncoding.decode(pairs, 0, pairs.length, restored, 0);
+        success = Arrays.equals(values, restored)
+            && Arrays.equals(values, RunLengthEncoding.decode(RunLengthEncoding.encode(values)));
+        System.out.printf("  %s int pāri: %d -> %d elementi%n", success ? "✓" : "✗", values.length, pairs.length);
+        
+        int[] symbols = new int[data.length];
+        int symbolCount = RunLengthEncoding.encodeZeroRuns(data, 0, data.length, symbols);
+        byte[] ranks = new byte[RunLengthEncoding.zeroRunsDecodedLength(symbols, 0, symbolCount)];
+        success = RunLengthEncoding.decodeZeroRuns(symbols, 0, symbolCount, ranks, 0) == data.length
+            && Arrays.equals(data, ranks);
+        System.out.printf("  %s nuļļu virknes (RUN_A/RUN_B): %d -> %d simboli%n",
+                          success ? "✓" : "✗", data.length, symbolCount);
+    }
+    
+    private static void testPipelines() throws Exception {
+        System.out.println("\nPipelines (posmu ķēdes galvenē):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        // Lietotāja posms: XOR ar konstanti, reģistrēts dekodēšanai ar savu ID
+        CompressionStage xor = new CompressionStage() {
+            public int id() {
+                return 200;
+            }
+            public void encode(byte[] input, int start, int end, BitWriter out) {
+                for (int i = start; i < end; i++) {
+                    out.writeBits(input[i] ^ 0x5A, 8);
+                }
+            }
+            public void decode(byte[] input, int start, int end, byte[] output, int outputPos, int outputLength) {
+                for (int i = 0; i < outputLength; i++) {
+                    output[outputPos + i] = (byte) (input[start + i] ^ 0x5A);
+                }
+            }
+            public String toString() {
+                return "XOR";
+            }
+        };
+        CompressionPipeline.register(xor);
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        CompressionPipeline[] pipelines = {
+            CompressionPipeline.of(CompressionPipeline.LZ77),
+            CompressionPipeline.of(CompressionPipeline.lz77(9)),
+            CompressionPipeline.of(CompressionPipeline.HUFFMAN),
+            CompressionPipeline.of(CompressionPipeline.MTF, CompressionPipeline.RLE, CompressionPipeline.HUFFMAN),
+            CompressionPipeline.of(CompressionPipeline.BWT, CompressionPipeline.MTF_HUFFMAN),
+            CompressionPipeline.of(CompressionPipeline.BWT, CompressionPipeline.MTF, CompressionPipeline.RLE,
+                                   CompressionPipeline.HUFFMAN),
+            CompressionPipeline.of(xor, CompressionPipeline.LZ77)
+        };
+        for (CompressionPipeline pipeline : pipelines) {
+            long startTime = System.nanoTime();
+            byte[] compressed = OWOCompressor.compress(html, pipeline);
+            long time = System.nanoTime() - startTime;
+            boolean success = Arrays.equals(html, OWOCompressor.decompress(compressed));
+            System.out.printf("  %s %-22s %d B -> %d B (%.1f ms)%n", success ? "✓" : "✗", pipeline,
+                              html.length, compressed.length, time / 1e6);
+        }
+        
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OWOOutputStream out = new OWOOutputStream(buffer, LZ77Compression.DEFAULT_LEVEL, 64 * 1024)) {
+            out.setPipeline(pipelines[4]);
+            out.write(html);
+        }
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        try (OWOInputStream in = new OWOInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            in.transferTo(restored);
+        }
+        boolean success = Arrays.equals(html, restored.toByteArray())
+            && Arrays.equals(html, OWOCompressor.decompressParallel(buffer.toByteArray()));
+        System.out.printf("  %s plūsma %s: %d B -> %d B%n", success ? "✓" : "✗", pipelines[4],
+                          html.length, buffer.size());
+        
+        // Nereģistrēts posma ID galvenē
+        byte[] compressed = OWOCompressor.compress(Arrays.copyOf(html, 10000), pipelines[2]);
+        compressed[4] = (byte) 201; // marker, 2 baitu garums, posmu skaits, pirmā posma ID
+        try {
+            OWOCompressor.decompress(compressed);
+            System.out.println("  ✗ nezināms posms netika atpazīts");
+        } catch (IllegalArgumentException e) {
+            System.out.println("  ✓ nezināms posms: " + e.getMessage());
+        }
+    }
+    
+    private static void testDictionary() throws Exception {
+        System.out.println("\nPreset dictionary (OWODictionary.HTML, fragmenti 200 B - 4 KB):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        Random random = new Random(5);
+        for (String name : new String[] {"File1.html", "File3.html"}) {
+            byte[] html = Files.readAllBytes(Paths.get("TestFiles/" + name));
+            long original = 0;
+            long plain = 0;
+            long primed = 0;
+            boolean success = true;
+            for (int i = 0; i < 200; i++) {
+                int length = 200 + random.nextInt(3900);
+                int offset = random.nextInt(html.length - length);
+                byte[] fragment = Arrays.copyOfRange(html, offset, offset + length);
+                byte[] withDictionary = OWOCompressor.compress(fragment, LZ77Compression.DEFAULT_LEVEL, OWODictionary.HTML);
+                success &= Arrays.equals(fragment, OWOCompressor.decompress(withDictionary));
+                original += length;
+                plain += OWOCompressor.compress(fragment).length;
+                primed += withDictionary.length;
+            }
+            System.out.printf("  %s %s: %d B -> %d B bez vārdnīcas, %d B ar vārdnīcu%n",
+                              success ? "✓" : "✗", name, original, plain, primed);
+        }
+        
+        // Lietotāja vārdnīca plūsmā: tikai pirmais bloks atsaucas uz vārdnīcu, pārējie - uz iepriekšējo bloku
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File1.html"));
+        OWODictionary custom = OWODictionary.of(OWODictionary.MIN_USER_ID, Arrays.copyOf(html, 4096));
+        OWODictionary.register(custom);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OWOOutputStream out = new OWOOutputStream(buffer, LZ77Compression.DEFAULT_LEVEL, 16 * 1024)) {
+            out.setDictionary(custom);
+            out.setPrimedWindow(true);
+            out.write(html);
+        }
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        try (OWOInputStream in = new OWOInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            in.transferTo(restored);
+        }
+        boolean success = Arrays.equals(html, restored.toByteArray())
+            && Arrays.equals(html, OWOCompressor.decompressParallel(buffer.toByteArray()));
+        System.out.printf("  %s plūsma ar lietotāja vārdnīcu: %d B -> %d B%n", success ? "✓" : "✗",
+                          html.length, buffer.size());
+    }
+    
+    private static void testDictionaryTrainer() throws Exception {
+        System.out.println("\nDictionary trainer (apmācīta uz File1/3/4, fragmenti no File2):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        List<byte[]> samples = new ArrayList<>();
+        for (String name : new String[] {"File1.html", "File3.html", "File4.html"}) {
+            samples.add(Files.readAllBytes(Paths.get("TestFiles/" + name)));
+        }
+        long startTime = System.nanoTime();
+        OWODictionary trained = OWODictionaryTrainer.train(samples, OWODictionary.MAX_SIZE, 1000);
+        long time = System.nanoTime() - startTime;
+        
+        // Saglabāta un nolasīta vārdnīca ir tāda pati
+        java.nio.file.Path file = Files.createTempFile("owo", ".owod");
+        trained.save(file.toString());
+        OWODictionary loaded = OWODictionary.load(file.toString());
+        Files.delete(file);
+        OWODictionary.register(loaded);
+        boolean success = trained.id() == 1000 && loaded.id() == trained.id()
+            && Arrays.equals(loaded.toByteArray(), trained.toByteArray());
+        
+        // Tas pats saturs ar citu ID ir atsevišķa vārdnīca - vairākām vietnēm ID nesakrīt
+        OWODictionary other = OWODictionaryTrainer.train(samples, OWODictionary.MAX_SIZE, 1001);
+        OWODictionary.register(other);
+        success &= OWODictionary.forId(1000) == loaded && OWODictionary.forId(1001) == other;
+        System.out.printf("  %s %d B, ID %d (%.0f ms)%n", success ? "✓" : "✗", trained.size(), trained.id(), time / 1e6);
+        
+        // Viens paraugs vai paraugi bez kopīgiem fragmentiem nedod tukšu vārdnīcu
+        byte[] first = new byte[4096];
+        byte[] second = new byte[4096];
+        new Random(5).nextBytes(first);
+        new Random(6).nextBytes(second);
+        for (List<byte[]> invalid : List.of(List.of(samples.get(0)), List.of(first, second))) {
+            try {
+                OWODictionaryTrainer.train(invalid, OWODictionary.MAX_SIZE, 1002);
+                System.out.println("  ✗ nederīgi paraugi netika noraidīti");
+            } catch (IllegalArgumentException e) {
+                System.out.println("  ✓ " + invalid.size() + " paraugi noraidīti: " + e.getMessage());
+            }
+        }
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(8);
+        long original = 0;
+        long plain = 0;
+        long builtIn = 0;
+        long custom = 0;
+        for (int i = 0; i < 200; i++) {
+            int length = 200 + random.nextInt(3900);
+            int offset = random.nextInt(html.length - length);
+            byte[] fragment = Arrays.copyOfRange(html, offset, offset + length);
+            byte[] compressed = OWOCompressor.compress(fragment, LZ77Compression.DEFAULT_LEVEL, loaded);
+            success &= Arrays.equals(fragment, OWOCompressor.decompress(compressed));
+            original += length;
+            plain += OWOCompressor.compress(fragment).length;
+            builtIn += OWOCompressor.compress(fragment, LZ77Compression.DEFAULT_LEVEL, OWODictionary.HTML).length;
+            custom += compressed.length;
+        }
+        System.out.printf("  %s File2.html fragmenti: %d B -> %d B bez vārdnīcas, %d B HTML, %d B apmācīta%n",
+                          success ? "✓" : "✗", original, plain, builtIn, custom);
+    }
+    
+    private static void testStaticTables() throws Exception {
+        System.out.println("\nStatic Huffman tables (StaticHuffmanTable.HTML, fragmenti 64 B - 1 KB no File2):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(9);
+        long original = 0;
+        long compressedTotal = 0;
+        long withDictionary = 0;
+        int staticBlocks = 0;
+        boolean success = true;
+        for (int i = 0; i < 500; i++) {
+            int length = 64 + random.nextInt(960);
+            int offset = random.nextInt(html.length - length);
+            byte[] fragment = Arrays.copyOfRange(html, offset, offset + length);
+            byte[] compressed = OWOCompressor.compress(fragment);
+            byte[] primed = OWOCompressor.compress(fragment, LZ77Compression.DEFAULT_LEVEL, OWODictionary.HTML);
+            success &= Arrays.equals(fragment, OWOCompressor.decompress(compressed))
+                && Arrays.equals(fragment, OWOCompressor.decompress(primed));
+            staticBlocks += (compressed[0] == 10 ? 1 : 0) + (primed[0] == 10 ? 1 : 0);
+            original += length;
+            compressedTotal += compressed.length;
+            withDictionary += primed.length;
+        }
+        success &= staticBlocks > 0;
+        System.out.printf("  %s %d B -> %d B, %d B ar vārdnīcu (%d/1000 bloki ar statisko tabulu)%n",
+                          success ? "✓" : "✗", original, compressedTotal, withDictionary, staticBlocks);
+        
+        // Lieliem blokiem dinamiskās tabulas joprojām ir lētākas
+        byte[] large = OWOCompressor.compress(html);
+        System.out.printf("  %s File2.html: dinamiskās tabulas (marker %d)%n", large[0] == 4 ? "✓" : "✗", large[0]);
+    }
+    
+    private static void testIncompressibleInput() throws Exception {
+        System.out.println("\nIncompressible input (izlases novērtējums un pārtraukta LZ77 parsēšana):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(10);
+        byte[] noise = new byte[1024 * 1024];
+        random.nextBytes(noise);
+        
+        // Nejauši baiti, lielākoties nejauši baiti ar HTML ik pēc 128 KB, HTML + nejauši baiti,
+        // nejaušs 2 KB bloks, kas atkārtojas (izskatās pēc trokšņa, bet LZ77 to kompresē)
+        byte[] mostlyNoise = noise.clone();
+        for (int pos = 0; pos < mostlyNoise.length; pos += 128 * 1024) {
+            System.arraycopy(html, pos % 200000, mostlyNoise, pos, 4096);
+        }
+        byte[] mixed = Arrays.copyOf(html, 400000);
+        System.arraycopy(noise, 0, mixed, 200000, 200000);
+        byte[] periodic = new byte[256 * 1024];
+        for (int i = 0; i < periodic.length; i++) {
+            periodic[i] = noise[i % 2048];
+        }
+        // Trokšņains sākums nedrīkst likt glabāt bloku, kura lielākā daļa ir HTML
+        byte[] noisyPrefix = Arrays.copyOf(noise, 64 * 1024 + html.length);
+        System.arraycopy(html, 0, noisyPrefix, 64 * 1024, html.length);
+        
+        String[] names = {"nejauši baiti", "trokšņains", "HTML + troksnis", "periodisks troksnis", "troksnis + HTML"};
+        byte[][] inputs = {noise, mostlyNoise, mixed, periodic, noisyPrefix};
+        boolean[] expectStored = {true, true, false, false, false};
+        for (int i = 0; i < inputs.length; i++) {
+            OWOCompressor.compress(inputs[i]); // JIT iesildīšana
+            long startTime = System.nanoTime();
+            byte[] compressed = OWOCompressor.compress(inputs[i]);
+            long time = System.nanoTime() - startTime;
+            boolean success = Arrays.equals(inputs[i], OWOCompressor.decompress(compressed))
+                && (compressed[0] == 0) == expectStored[i];
+            System.out.printf("  %s %s: %d B -> %d B (marker %d, %.1f ms)%n", success ? "✓" : "✗", names[i],
+                              inputs[i].length, compressed.length, compressed[0], time / 1e6);
+        }
+        
+        // Bloki, kas atkārto vēsturi: katrs pats par sevi ir troksnis, bet LZ77 tos atsauc uz iepriekšējiem
+        byte[] chunk = Arrays.copyOf(noise, 4096);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OWOOutputStream out = new OWOOutputStream(buffer, LZ77Compression.DEFAULT_LEVEL, chunk.length)) {
+            out.setPrimedWindow(true);
+            for (int i = 0; i < 50; i++) {
+                out.write(chunk);
+            }
+        }
+        boolean success = buffer.size() < 50 * chunk.length / 10;
+        System.out.printf("  %s atkārtots trokšņa bloks ar vēsturi: %d B -> %d B%n", success ? "✓" : "✗",
+                          50 * chunk.length, buffer.size());
+    }
+    
+    private static void testAutoStrategy() throws Exception {
+        System.out.println("\nAUTO strategy (izmēģinājumi uz bloka izlases, izvēle redzama bloka marķierī):");
+        System.out.println("─────────────────────────────────────────────────────────────────────────────────────");
+        
+        byte[] html = Files.readAllBytes(Paths.get("TestFiles/File2.html"));
+        Random random = new Random(11);
+        byte[] runs = new byte[300000];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : (i / 100) % 7);
+        }
+        byte[] noise = new byte[100000];
+        random.nextBytes(noise);
+        
+        // Līmenis nosaka izmēģināmos kandidātus: 2 - tikai LZ77 un MTF_RLE, 6 - arī BWT
+        String[] names = {"File2.html, līmenis 6", "File2.html, līmenis 2", "garas virknes", "nejauši baiti"};
+        byte[][] inputs = {html, html, runs, noise};
+        int[] levels = {6, 2, 6, 6};
+        OWOCompressor.Strategy[] expected = {OWOCompressor.Strategy.BWT, OWOCompressor.Strategy.LZ77,
+                                             OWOCompressor.Strategy.MTF_RLE, null};
+        for (int i = 0; i < inputs.length; i++) {
+            long startTime = System.nanoTime();
+            byte[] compressed = OWOCompressor.compress(inputs[i], levels[i], OWOCompressor.Strategy.AUTO);
+            long time = System.nanoTime() - startTime;
+            OWOCompressor.Strategy chosen = OWOCompressor.strategyOf(compressed);
+            boolean success = Arrays.equals(inputs[i], OWOCompressor.decompress(compressed)) && chosen == expected[i];
+            System.out.printf("  %s %s: %d B -> %d B (%s, %.1f ms)%n", success ? "✓" : "✗", names[i],
+                              inputs[i].length, compressed.length, chosen == null ? "glabāts" : chosen, time / 1e6);
+        }
+        
+        // Plūsmā stratēģija tiek izvēlēta katram blokam atsevišķi
+        byte[] mixed = Arrays.copyOf(html, html.length + runs.length);
+        System.arraycopy(runs, 0, mixed, html.length, runs.length);
+        File file = File.createTempFile("owo-auto", ".owo");
+        try {
+            try (OWOOutputStream out = new OWOOutputStream(new FileOutputStream(file),
+                                                           LZ77Compression.DEFAULT_LEVEL, 64 * 1024)) {
+                out.setStrategy(OWOCompressor.Strategy.AUTO);
+                out.write(mixed);
+            }
+            boolean success = Arrays.equals(mixed, OWOCompressor.decompressParallel(Files.readAllBytes(file.toPath())));
+            Map<OWOCompressor.Strategy, Integer> counts = new TreeMap<>();
+            try (SeekableOWOReader reader = new SeekableOWOReader(file.toPath())) {
+                for (int block = 0; block < reader.blockCount(); block++) {
+                    OWOCompressor.Strategy strategy = reader.blockStrategy(block);
+                    if (strategy != null) {
+                        counts.merge(strategy, 1, Integer::sum);
+                    }
+                }
+            }
+            success &= counts.containsKey(OWOCompressor.Strategy.MTF_RLE);
+            System.out.printf("  %s plūsma (64 KB bloki): %s%n", success ? "✓" : "✗", counts);
+        } finally {
+            file.delete();
+        }
+    }
+    
     private static void printSummary(List<CompressionResult> results) {
         System.out.println("════════════════════════════════════════════════════════════════════════════════════");
         System.out.println("Apkopojums");
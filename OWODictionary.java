@@ -0,0 +1,198 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Iepriekš zināma vārdnīca LZ77 logam: kompresors un dekompresors to uzskata par jau redzētu vēsturi,
+ * tāpēc arī dažus simtus baitu gari fragmenti var atsaukties uz tipiskām HTML/CSS/JS virknēm
+ * Bloka galvenē glabājas tikai vārdnīcas ID - vārdnīcai jābūt reģistrētai gan kompresējot, gan dekompresējot
+ *
+ * ID 1-127 ir iebūvētajām vārdnīcām, lietotāja vārdnīcām - no MIN_USER_ID
+ */
+public final class OWODictionary {
+
+    public static final int MAX_SIZE = LZ77Compression.WINDOW_SIZE; // Tālākas atsauces logā neietilpst
+    public static final int MIN_USER_ID = 128;
+
+    private static final String MAGIC_HEADER = "OWOD"; // Vārdnīcas fails: [OWOD][int ID][int garums][saturs]
+    private static final Map<Integer, OWODictionary> DICTIONARIES = new ConcurrentHashMap<>();
+
+    // Biežākās virknes beigās - tuvākām atsaucēm ir īsāki attālumu kodi
+    private static final String HTML_CONTENT =
+        "function(){return this}var e=document.getElementById(\"\");window.addEventListener(\"load\","
+        + "querySelectorAll(\".length;i++){if(typeof undefined===null)}else{JSON.stringify(console.log("
+        + "setTimeout(function(){},0);new Promise(resolve,reject)=>{.then(.catch(async await "
+        + "const let prototype.push(\"click\",event.preventDefault();innerHTML textContent appendChild("
+        + "createElement(\"div\");classList.add(\"active\");addEventListener(\"DOMContentLoaded\","
+        + "background-color:#fff;background:url(color:#000;font-family:Arial,Helvetica,sans-serif;"
+        + "font-size:14px;font-weight:bold;line-height:1.5;text-align:center;text-decoration:none;"
+        + "margin:0 auto;padding:0;border:1px solid #ccc;border-radius:4px;box-sizing:border-box;"
+        + "display:none;display:block;display:inline-block;display:flex;align-items:center;"
+        + "justify-content:space-between;position:absolute;position:relative;top:0;left:0;width:100%;"
+        + "height:100%;max-width:overflow:hidden;cursor:pointer;z-index:transition:all .3s ease;"
+        + "@media (max-width:768px){!important;}\n"
+        + "<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n"
+        + "<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">\n"
+        + "<meta http-equiv=\"X-UA-Compatible\" content=\"IE=edge\">\n"
+        + "<meta name=\"description\" content=\"<meta name=\"keywords\" content=\"\n"
+        + "<meta property=\"og:title\" content=\"<meta property=\"og:description\" content=\""
+        + "<meta property=\"og:image\" content=\"<meta property=\"og:url\" content=\"https://"
+        + "<meta name=\"twitter:card\" content=\"summary_large_image\">\n"
+        + "<link rel=\"icon\" type=\"image/png\" href=\"/favicon.ico\">\n"
+        + "<link rel=\"canonical\" href=\"https://www.<link rel=\"preconnect\" href=\"https://fonts.googleapis.com\">\n"
+        + "<link rel=\"stylesheet\" href=\"/css/style.css\" type=\"text/css\" media=\"all\">\n"
+        + "<title></title>\n<style type=\"text/css\"></style>\n"
+        + "<script type=\"text/javascript\" src=\"/js/<script async src=\"https://www.googletagmanager.com/gtag/js?id="
+        + "<script type=\"application/ld+json\">{\"@context\":\"https://schema.org\",\"@type\":\""
+        + "</script>\n</head>\n<body class=\"\">\n<noscript></noscript>\n"
+        + "<header class=\"header\">\n<nav class=\"navbar navbar-expand-lg\">\n<ul class=\"nav\">\n"
+        + "<li class=\"nav-item\"><a class=\"nav-link\" href=\"/\"></a></li>\n</ul>\n</nav>\n</header>\n"
+        + "<main id=\"main\" role=\"main\">\n<section class=\"section\">\n<article class=\"post\">\n"
+        + "<h1 class=\"title\"></h1>\n<h2></h2>\n<h3></h3>\n<p></p>\n<br>\n<br />\n<hr>\n"
+        + "<strong></strong><em></em><b></b><i></i><small></small><code></code><pre></pre>\n"
+        + "<blockquote></blockquote>\n<figure><figcaption></figcaption></figure>\n"
+        + "<table class=\"table\">\n<thead>\n<tr>\n<th scope=\"col\"></th>\n</tr>\n</thead>\n<tbody>\n"
+        + "<tr>\n<td></td>\n</tr>\n</tbody>\n</table>\n"
+        + "<form action=\"/search\" method=\"post\">\n<label for=\"\"></label>\n"
+        + "<input type=\"text\" name=\"\" id=\"\" value=\"\" placeholder=\"\">\n"
+        + "<input type=\"hidden\" name=\"<input type=\"checkbox\" <input type=\"submit\" value=\""
+        + "<select name=\"\"><option value=\"\" selected=\"selected\"></option></select>\n"
+        + "<textarea rows=\"\" cols=\"\"></textarea>\n<button type=\"button\" class=\"btn btn-primary\">"
+        + "</button>\n</form>\n"
+        + "<img src=\"/images/\" alt=\"\" width=\"\" height=\"\" loading=\"lazy\" />\n"
+        + "<a href=\"https://www.\" target=\"_blank\" rel=\"noopener noreferrer\" title=\"\"></a>\n"
+        + "<span class=\"\"></span>\n<ul>\n<li></li>\n</ul>\n<ol>\n<li></li>\n</ol>\n"
+        + "</article>\n</section>\n</main>\n"
+        + "<footer class=\"footer\">\n<div class=\"container\">\n<div class=\"row\">\n"
+        + "<div class=\"col-md-\">\n<p>&copy; &nbsp;&amp;&quot;&lt;&gt; All rights reserved.</p>\n"
+        + "</div>\n</div>\n</div>\n</footer>\n</body>\n</html>\n"
+        + "<div class=\"container\">\n<div class=\"row\">\n<div class=\"col\">\n"
+        + "<div class=\"\" id=\"\" style=\"\" data-id=\"\" aria-label=\"\" aria-hidden=\"true\" role=\"\">"
+        + "</div>\n</div>\n<div class=\"\">\n<a href=\"/\" class=\"\">\n<span></span>\n<p></p>\n</a>\n"
+        + "</div>\n<div class=\"";
+
+    /** Iebūvētā HTML/CSS/JS vārdnīca */
+    public static final OWODictionary HTML = new OWODictionary(1, HTML_CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    static {
+        DICTIONARIES.put(HTML.id, HTML);
+    }
+
+    private final int id;
+    private final byte[] content;
+
+    private OWODictionary(int id, byte[] content) {
+        this.id = id;
+        this.content = content;
+    }
+
+    /**
+     * Izveido lietotāja vārdnīcu (saturs tiek nokopēts)
+     * @param id Vārdnīcas ID (no MIN_USER_ID)
+     * @param content Vārdnīcas baiti, ne vairāk kā MAX_SIZE; biežākās virknes vēlams beigās
+     * @return Vārdnīca, kas vēl jāreģistrē ar register
+     */
+    public static OWODictionary of(int id, byte[] content) {
+        if (id < MIN_USER_ID) {
+            throw new IllegalArgumentException("Lietotāja vārdnīcas ID jābūt vismaz " + MIN_USER_ID + ": " + id);
+        }
+        if (content.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Vārdnīca pārāk liela: " + content.length + " > " + MAX_SIZE);
+        }
+        return new OWODictionary(id, content.clone());
+    }
+
+    /**
+     * Reģistrē vārdnīcu, lai bloki ar tās ID būtu dekodējami; atkārtota tās pašas vārdnīcas
+     * reģistrēšana ir atļauta
+     * @throws IllegalArgumentException Ja ID jau ir cita satura vārdnīcai
+     */
+    public static void register(OWODictionary dictionary) {
+        OWODictionary existing = DICTIONARIES.putIfAbsent(dictionary.id, dictionary);
+        if (existing != null && !Arrays.equals(existing.content, dictionary.content)) {
+            throw new IllegalArgumentException("Vārdnīcas ID jau reģistrēts: " + dictionary.id);
+        }
+    }
+
+    /**
+     * Nolasa vārdnīcu no faila (piemēram, no OWODictionaryTrainer); to vēl jāreģistrē ar register
+     * @param path Vārdnīcas faila ceļš
+     * @return Vārdnīca
+     * @throws IOException Ja fails nav derīgs vārdnīcas fails
+     */
+    public static OWODictionary load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            byte[] header = new byte[4];
+            in.readFully(header);
+            if (!new String(header, StandardCharsets.UTF_8).equals(MAGIC_HEADER)) {
+                throw new IOException("Nederīgs vārdnīcas faila formāts");
+            }
+            int id = in.readInt();
+            int length = in.readInt();
+            if (id < MIN_USER_ID || length < 0 || length > MAX_SIZE) {
+                throw new IOException("Nederīga vārdnīcas galvene: " + id + "/" + length);
+            }
+            byte[] content = new byte[length];
+            in.readFully(content);
+            return new OWODictionary(id, content);
+        }
+    }
+
+    /**
+     * Saglabā vārdnīcu failā, ko var nolasīt ar load
+     * @param path Vārdnīcas faila ceļš
+     * @throws IOException Ja rodas I/O kļūda
+     */
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.write(MAGIC_HEADER.getBytes(StandardCharsets.UTF_8));
+            out.writeInt(id);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+    }
+
+    /**
+     * @return Reģistrētā vārdnīca vai null
+     */
+    public static OWODictionary forId(int id) {
+        return DICTIONARIES.get(id);
+    }
+
+    /**
+     * @return Vārdnīcas ID bloka galvenē
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * @return Vārdnīcas garums baitos
+     */
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * @return Vārdnīcas satura kopija
+     */
+    public byte[] toByteArray() {
+        return content.clone();
+    }
+
+    /**
+     * Kopē vārdnīcu buferī pirms ievades, lai atbilstības to redzētu kā vēsturi
+     */
+    void copyTo(byte[] buffer, int offset) {
+        System.arraycopy(content, 0, buffer, offset, content.length);
+    }
+
+    /**
+     * @return Vārdnīcas saturs bez kopēšanas dekoderim; to nedrīkst mainīt
+     */
+    byte[] content() {
+        return content;
+    }
+}
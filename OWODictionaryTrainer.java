@@ -0,0 +1,235 @@
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vārdnīcas apmācība no paraugu korpusa (COVER pieeja)
+ * Katram DMER_LENGTH baitu fragmentam sufiksu masīvs un LCP dod, cik dažādos paraugos tas atkārtojas;
+ * vārdnīcā alkatīgi tiek ņemti SEGMENT_LENGTH baitu segmenti ar lielāko vēl nepārklāto fragmentu vērtību
+ *
+ * Lietošana: java OWODictionaryTrainer [--id ID] izvade.owod maxSize paraugs1.html paraugs2.html ...
+ */
+public class OWODictionaryTrainer {
+
+    private static final int DMER_LENGTH = 8;       // Īsāki fragmenti LZ77 atbilstībā maz ietaupa
+    private static final int SEGMENT_LENGTH = 256;
+    private static final int MIN_SAMPLES = 2;       // Fragmentam jābūt vismaz tik paraugos
+
+    /**
+     * Apmāca vārdnīcu ar norādītu ID - vairākām vārdnīcām (piemēram, katrai vietnei sava) ID jāpiešķir pašam
+     * @param samples Paraugi, piemēram, vienas vietnes lapas; fragmenti no viena parauga netiek ņemti,
+     *                tāpēc vajag vismaz divus
+     * @param maxSize Maksimālais vārdnīcas izmērs (1 - OWODictionary.MAX_SIZE)
+     * @param id Vārdnīcas ID (no OWODictionary.MIN_USER_ID; līdz 16383 galvenē aizņem 2 baitus)
+     * @return Vārdnīca, kas vēl jāreģistrē (OWODictionary.register) vai jāsaglabā (save)
+     * @throws IllegalArgumentException Ja paraugu ir mazāk par diviem, tiem nav kopīgu fragmentu vai ID nav derīgs
+     */
+    public static OWODictionary train(List<byte[]> samples, int maxSize, int id) {
+        return OWODictionary.of(id, selectContent(samples, maxSize));
+    }
+
+    /**
+     * Apmāca vārdnīcu; ID tiek atvasināts no satura (MIN_USER_ID..16383). Tas ir tikai ~16 tūkstoši vērtību,
+     * tāpēc jau pie dažiem simtiem vārdnīcu divām var sakrist ID un OWODictionary.register izmet izņēmumu -
+     * vairākām vārdnīcām jāizmanto train(samples, maxSize, id)
+     */
+    public static OWODictionary train(List<byte[]> samples, int maxSize) {
+        byte[] content = selectContent(samples, maxSize);
+        int id = OWODictionary.MIN_USER_ID + Math.floorMod(Arrays.hashCode(content), 16384 - OWODictionary.MIN_USER_ID);
+        return OWODictionary.of(id, content);
+    }
+
+    /**
+     * Izvēlas vārdnīcas saturu: segmenti ar visbiežāk atkārtotajiem fragmentiem, labākie beigās
+     */
+    private static byte[] selectContent(List<byte[]> samples, int maxSize) {
+        if (maxSize < 1 || maxSize > OWODictionary.MAX_SIZE) {
+            throw new IllegalArgumentException("Nederīgs vārdnīcas izmērs: " + maxSize);
+        }
+        if (samples.size() < MIN_SAMPLES) {
+            throw new IllegalArgumentException("Vajag vismaz " + MIN_SAMPLES + " paraugus: " + samples.size());
+        }
+
+        // Korpuss: paraugu baiti, aiz katra unikāls atdalītājs (256 + parauga indekss),
+        // tāpēc kopīgi prefiksi nepārsniedz parauga robežas
+        int length = 0;
+        for (byte[] sample : samples) {
+            length += sample.length + 1;
+        }
+        int[] corpus = new int[length];
+        int[] sampleEnd = new int[samples.size()];
+        int pos = 0;
+        for (int s = 0; s < samples.size(); s++) {
+            for (byte b : samples.get(s)) {
+                corpus[pos++] = b & 0xFF;
+            }
+            sampleEnd[s] = pos;
+            corpus[pos++] = 256 + s;
+        }
+        int[] suffixes = BurrowsWheelerTransform.suffixArray(corpus, length, 255 + samples.size());
+
+        // Fragmentu grupas: blakus sufiksi ar kopīgu prefiksu >= DMER_LENGTH
+        int[] group = new int[length];
+        int[] groupScore = new int[length];
+        int[] lcp = longestCommonPrefixes(corpus, suffixes);
+        int[] sampleOf = new int[length];
+        for (int s = 0, p = 0; p < length; p++) {
+            sampleOf[p] = s;
+            if (p == sampleEnd[s]) {
+                s++;
+            }
+        }
+        int[] lastGroupOfSample = new int[samples.size()];
+        Arrays.fill(lastGroupOfSample, -1);
+        int groupCount = -1;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || lcp[i] < DMER_LENGTH) {
+                groupCount++;
+            }
+            int suffix = suffixes[i];
+            group[suffix] = groupCount;
+            int sample = sampleOf[suffix];
+            if (lastGroupOfSample[sample] != groupCount) {
+                lastGroupOfSample[sample] = groupCount;
+                groupScore[groupCount]++;
+            }
+        }
+        for (int g = 0; g <= groupCount; g++) {
+            if (groupScore[g] < MIN_SAMPLES) {
+                groupScore[g] = 0;
+            }
+        }
+
+        // Alkatīga segmentu izvēle; katrs fragments tiek ieskaitīts tikai vienu reizi
+        List<int[]> segments = new ArrayList<>();
+        int[] windowCount = new int[groupCount + 1];
+        int total = 0;
+        while (total < maxSize) {
+            int[] best = bestSegment(sampleEnd, group, groupScore, windowCount);
+            if (best == null) {
+                break;
+            }
+            int start = best[0];
+            int end = best[1];
+            for (int p = start; p + DMER_LENGTH <= end; p++) {
+                groupScore[group[p]] = 0;
+            }
+            if (end - start > maxSize - total) {
+                start = end - (maxSize - total);
+            }
+            segments.add(new int[] {start, end});
+            total += end - start;
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("Paraugiem nav kopīgu " + DMER_LENGTH + " baitu fragmentu");
+        }
+
+        // Labākie segmenti vārdnīcas beigās - tuvākām atsaucēm īsāki attālumu kodi
+        byte[] content = new byte[total];
+        int offset = total;
+        for (int[] segment : segments) {
+            int segmentLength = segment[1] - segment[0];
+            offset -= segmentLength;
+            for (int i = 0; i < segmentLength; i++) {
+                content[offset + i] = (byte) corpus[segment[0] + i];
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Atrod segmentu ar lielāko nepārklāto fragmentu vērtību (slīdošs logs katrā paraugā)
+     * @return {sākums, beigas} bez nulles vērtības fragmentiem malās vai null, ja vērtīgu fragmentu vairs nav
+     */
+    private static int[] bestSegment(int[] sampleEnd, int[] group, int[] groupScore, int[] windowCount) {
+        long bestScore = 0;
+        int bestStart = -1;
+        int bestEnd = -1;
+        int sampleStart = 0;
+        for (int end : sampleEnd) {
+            // Fragmenti, kas sākas [start, start + SEGMENT_LENGTH - DMER_LENGTH]
+            int lastDmer = end - DMER_LENGTH;
+            long score = 0;
+            int windowStart = sampleStart;
+            for (int p = sampleStart; p <= lastDmer; p++) {
+                if (windowCount[group[p]]++ == 0) {
+                    score += groupScore[group[p]];
+                }
+                if (p - windowStart > SEGMENT_LENGTH - DMER_LENGTH) {
+                    if (--windowCount[group[windowStart]] == 0) {
+                        score -= groupScore[group[windowStart]];
+                    }
+                    windowStart++;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestStart = windowStart;
+                    bestEnd = p;
+                }
+            }
+            for (int p = windowStart; p <= lastDmer; p++) {
+                windowCount[group[p]]--;
+            }
+            sampleStart = end + 1;
+        }
+        if (bestStart < 0) {
+            return null;
+        }
+
+        while (groupScore[group[bestStart]] == 0) {
+            bestStart++;
+        }
+        while (groupScore[group[bestEnd]] == 0) {
+            bestEnd--;
+        }
+        return new int[] {bestStart, bestEnd + DMER_LENGTH};
+    }
+
+    /**
+     * LCP masīvs (Kasai): lcp[i] - kopīgā prefiksa garums sufiksiem suffixes[i - 1] un suffixes[i]
+     */
+    private static int[] longestCommonPrefixes(int[] text, int[] suffixes) {
+        int length = suffixes.length;
+        int[] rank = new int[length];
+        for (int i = 0; i < length; i++) {
+            rank[suffixes[i]] = i;
+        }
+        int[] lcp = new int[length];
+        int common = 0;
+        for (int i = 0; i < length; i++) {
+            if (rank[i] == 0) {
+                common = 0;
+                continue;
+            }
+            int j = suffixes[rank[i] - 1];
+            while (i + common < length && j + common < length && text[i + common] == text[j + common]) {
+                common++;
+            }
+            lcp[rank[i]] = common;
+            if (common > 0) {
+                common--;
+            }
+        }
+        return lcp;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // --id nav obligāts: bez tā ID tiek atvasināts no satura un var sakrist ar citas vārdnīcas ID
+        int first = args.length >= 2 && args[0].equals("--id") ? 2 : 0;
+        if (args.length - first < 3) {
+            System.out.println("Lietošana: java OWODictionaryTrainer [--id ID] izvade.owod maxSize paraugs1 paraugs2 ...");
+            return;
+        }
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = first + 2; i < args.length; i++) {
+            samples.add(Files.readAllBytes(Paths.get(args[i])));
+        }
+        int maxSize = Integer.parseInt(args[first + 1]);
+        OWODictionary dictionary = first > 0 ? train(samples, maxSize, Integer.parseInt(args[1])) : train(samples, maxSize);
+        dictionary.save(args[first]);
+        System.out.printf("Vārdnīca %s: %d B, ID %d (%d paraugi)%n", args[first], dictionary.size(), dictionary.id(),
+                          samples.size());
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Dekompresējoša ievades plūsma OWO3 bloku formātam (skatīt OWOOutputStream)
+ * Atmiņā vienlaikus ir tikai viens dekompresēts bloks un iepriekšējā bloka beigas
+ */
+public class OWOInputStream extends FilterInputStream {
+
+    private static final int HISTORY_SIZE = LZ77Compression.WINDOW_SIZE;
+
+    private final DataInputStream dataIn;
+    private byte[] window = new byte[HISTORY_SIZE];  // [vēsture][pašreizējais bloks]
+    private byte[] compressed = new byte[0];
+    private final HuffmanCoding.DecodingTables tables = new HuffmanCoding.DecodingTables();
+    private int blockPos;
+    private int blockEnd;
+    private boolean eof;
+
+    /**
+     * @param in Avota plūsma, kas sākas ar OWO3 header
+     * @throws IOException Ja header nav derīgs
+     */
+    public OWOInputStream(InputStream in) throws IOException {
+        super(in);
+        this.dataIn = new DataInputStream(in);
+        byte[] header = new byte[4];
+        dataIn.readFully(header);
+        if (!new String(header, "UTF-8").equals(OWOOutputStream.MAGIC_HEADER)) {
+            throw new IOException("Nederīgs OWO faila formāts");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return window[blockPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, blockEnd - blockPos);
+        System.arraycopy(window, blockPos, b, off, count);
+        blockPos += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureData()) {
+            int count = (int) Math.min(n - skipped, blockEnd - blockPos);
+            blockPos += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    /**
+     * Raksta dekompresētos blokus tieši no dekodētāja bufera, bez starpposma kopijas
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        long transferred = 0;
+        while (ensureData()) {
+            out.write(window, blockPos, blockEnd - blockPos);
+            transferred += blockEnd - blockPos;
+            blockPos = blockEnd;
+        }
+        return transferred;
+    }
+
+    /**
+     * @return Baiti, kas pieejami pašreizējā blokā bez lasīšanas no avota
+     */
+    @Override
+    public int available() {
+        return blockEnd - blockPos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset netiek atbalstīts");
+    }
+
+    /**
+     * Nolasa nākamo bloku, ja pašreizējais ir izlasīts
+     * @return false, ja sasniegtas plūsmas beigas
+     */
+    private boolean ensureData() throws IOException {
+        while (blockPos == blockEnd) {
+            if (eof) {
+                return false;
+            }
+            int originalLength = dataIn.readInt();
+            if (originalLength == 0) {
+                eof = true;
+                return false;
+            }
+            int compressedLength = dataIn.readInt();
+            if (originalLength < 0 || originalLength > OWOOutputStream.MAX_BLOCK_SIZE
+                    || compressedLength < 1 || compressedLength > OWOOutputStream.MAX_BLOCK_SIZE + 16) {
+                throw new IOException("Nederīga bloka galvene: " + originalLength + "/" + compressedLength);
+            }
+
+            // Iepriekšējā bloka beigas paliek kā vēsture blokiem ar atsaucēm uz tām
+            int historyLength = Math.min(HISTORY_SIZE, blockEnd);
+            System.arraycopy(window, blockEnd - historyLength, window, 0, historyLength);
+            if (window.length < historyLength + originalLength) {
+                window = Arrays.copyOf(window, historyLength + originalLength);
+            }
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+
+            dataIn.readFully(compressed, 0, compressedLength);
+            OWOCompressor.decompressBlock(compressed, 0, compressedLength, window, historyLength, 0, originalLength,
+                                          tables);
+            blockPos = historyLength;
+            blockEnd = historyLength + originalLength;
+        }
+        return true;
+    }
+}
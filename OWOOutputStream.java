@@ -0,0 +1,310 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Kompresējoša izvades plūsma OWO3 bloku formātā
+ * Dati tiek krāti fiksēta izmēra blokā un kompresēti pa vienam blokam,
+ * tāpēc atmiņas patēriņš nav atkarīgs no kopējā datu apjoma
+ *
+ * Formāts: "OWO3", tad bloki [int oriģinālais garums][int kompresētais garums][marker + dati],
+ * beigās int 0. Pēc tā neobligāts bloku indekss brīvpiekļuves lasīšanai (SeekableOWOReader):
+ * [int bloku skaits][katram blokam: long datu pozīcija, int kompresētais garums,
+ * int oriģinālais garums, byte marker][int indeksa garums]["OWOX"]
+ *
+ * Ar setExecutor bloki tiek kompresēti paralēli un izrakstīti secībā; ar setPrimedWindow
+ * katrs bloks var atsaukties uz iepriekšējā bloka pēdējiem WINDOW_SIZE baitiem
+ */
+public class OWOOutputStream extends FilterOutputStream {
+
+    static final String MAGIC_HEADER = "OWO3";
+    static final String INDEX_MAGIC = "OWOX";
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    public static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private static final int HISTORY_SIZE = LZ77Compression.WINDOW_SIZE;
+
+    private final int level;
+    private final int blockSize;
+    private byte[] window;  // [vēsture][pašreizējais bloks]
+    private int historyLength;
+    private int blockLength;
+    private boolean primedWindow;
+    private OWOCompressor.Strategy strategy = OWOCompressor.Strategy.LZ77;
+    private CompressionPipeline pipeline;
+    private OWODictionary dictionary;
+    private boolean finished;
+
+    private boolean blockIndex = true;
+    private long position;  // Izrakstītie baiti kopš plūsmas sākuma
+    private int blockCount;
+    private final ByteArrayOutputStream indexBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(indexBuffer);
+
+    private Executor executor;
+    private final int maxPending = Runtime.getRuntime().availableProcessors() * 2;
+    private final ArrayDeque<PendingBlock> pending = new ArrayDeque<>();
+    // Atbrīvotie bloku un ierakstu buferi - paralēlam uzdevumam tiek nodots pats window, nevis tā kopija
+    private final ArrayDeque<byte[]> freeWindows = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> freeRecords = new ArrayDeque<>();
+
+    /**
+     * @param out Mērķa plūsma
+     */
+    public OWOOutputStream(OutputStream out) throws IOException {
+        this(out, LZ77Compression.DEFAULT_LEVEL, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param out Mērķa plūsma
+     * @param level Kompresijas līmenis (1 - ātrākais, 9 - labākā kompresija)
+     */
+    public OWOOutputStream(OutputStream out, int level) throws IOException {
+        this(out, level, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param out Mērķa plūsma
+     * @param level Kompresijas līmenis (1 - ātrākais, 9 - labākā kompresija)
+     * @param blockSize Bloka izmērs baitos
+     */
+    public OWOOutputStream(OutputStream out, int level, int blockSize) throws IOException {
+        super(out);
+        LZ77Compression.forLevel(level);
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Nederīgs bloka izmērs: " + blockSize);
+        }
+        this.level = level;
+        this.blockSize = blockSize;
+        this.window = new byte[HISTORY_SIZE + blockSize];
+        out.write(MAGIC_HEADER.getBytes("UTF-8"));
+        position = MAGIC_HEADER.length();
+    }
+
+    /**
+     * Izpildītājs bloku paralēlai kompresijai, piemēram, ForkJoinPool.commonPool()
+     * @param executor Izpildītājs vai null, lai kompresētu rakstītāja pavedienā
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Ieslēdz atbilstības uz iepriekšējā bloka beigām - labāka kompresija maziem blokiem,
+     * bet šādus blokus var dekodēt tikai secīgi
+     */
+    public void setPrimedWindow(boolean primedWindow) {
+        this.primedWindow = primedWindow;
+    }
+
+    /**
+     * Bloku kodēšanas stratēģija (noklusējumā LZ77); var mainīt arī starp blokiem
+     */
+    public void setStrategy(OWOCompressor.Strategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy);
+    }
+
+    /**
+     * Vārdnīca, uz kuru var atsaukties bloki bez citas vēstures (ar setPrimedWindow - tikai pirmais bloks);
+     * lasot tai jābūt reģistrētai (OWODictionary.register). null - bez vārdnīcas
+     */
+    public void setDictionary(OWODictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Bloku kodēšana ar posmu ķēdi (marker 8) stratēģijas vietā; null - atpakaļ uz stratēģiju
+     * Šādi bloki vienmēr ir neatkarīgi, arī ar setPrimedWindow
+     */
+    public void setPipeline(CompressionPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Ieslēdz vai izslēdz bloku indeksu plūsmas beigās (noklusējumā ieslēgts)
+     * Mazāki bloki dod precīzāku brīvpiekļuvi, lielāki - labāku kompresiju
+     */
+    public void setBlockIndex(boolean blockIndex) {
+        this.blockIndex = blockIndex;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        window[historyLength + blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int count = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, window, historyLength + blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+            if (blockLength == blockSize) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Raksta visus src atlikušos baitus (piemēram, no MappedByteBuffer) tieši bloka buferī
+     * @param src Avota buferis, tā pozīcija tiek pārvietota līdz limit
+     */
+    public void write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        while (src.hasRemaining()) {
+            int count = Math.min(src.remaining(), blockSize - blockLength);
+            src.get(window, historyLength + blockLength, count);
+            blockLength += count;
+            if (blockLength == blockSize) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Kompresē nepilno bloku un izraksta visus blokus, lai lasītājs var saņemt visus līdz šim rakstītos datus
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        writePending(0);
+        out.flush();
+    }
+
+    /**
+     * Izraksta atlikušos datus un beigu marķieri, neaizverot mērķa plūsmu
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeBlock();
+        writePending(0);
+
+        // Beigu marķieris un indekss vienā ierakstā
+        ByteArrayOutputStream trailer = new ByteArrayOutputStream(16 + indexBuffer.size());
+        DataOutputStream trailerOut = new DataOutputStream(trailer);
+        trailerOut.writeInt(0);
+        if (blockIndex) {
+            trailerOut.writeInt(blockCount);
+            indexBuffer.writeTo(trailerOut);
+            trailerOut.writeInt(4 + indexBuffer.size());
+            trailerOut.writeBytes(INDEX_MAGIC);
+        }
+        trailer.writeTo(out);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static ByteBuffer compressRecord(byte[] data, int start, int end, int level,
+                                             OWOCompressor.Strategy strategy, OWODictionary dictionary,
+                                             CompressionPipeline pipeline, byte[] target) {
+        return pipeline != null ? OWOCompressor.compressRecord(data, start, end, pipeline, target)
+                                : OWOCompressor.compressRecord(data, start, end, level, strategy, dictionary, target);
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        int start = historyLength;
+        int end = historyLength + blockLength;
+
+        byte[] data = window;
+        byte[] target = freeRecords.isEmpty() ? new byte[OWOCompressor.maxCompressedLength(blockSize) + 8]
+                                              : freeRecords.poll();
+        if (executor == null) {
+            ByteBuffer record = compressRecord(data, start, end, level, strategy, dictionary, pipeline, target);
+            writeRecord(blockLength, record);
+            freeRecords.add(record.array());
+        } else {
+            // Uzdevums saņem pašu window; nākamajam blokam - atbrīvots vai jauns buferis
+            OWOCompressor.Strategy blockStrategy = strategy;
+            OWODictionary blockDictionary = dictionary;
+            CompressionPipeline blockPipeline = pipeline;
+            FutureTask<ByteBuffer> task = new FutureTask<>(
+                () -> compressRecord(data, start, end, level, blockStrategy, blockDictionary, blockPipeline, target));
+            executor.execute(task);
+            pending.add(new PendingBlock(blockLength, data, task));
+            writePending(maxPending);
+            window = freeWindows.isEmpty() ? new byte[data.length] : freeWindows.poll();
+        }
+
+        // Nākamā bloka vēsture - šī bloka beigas (kopē tikai to)
+        if (primedWindow) {
+            historyLength = Math.min(HISTORY_SIZE, end);
+            System.arraycopy(data, end - historyLength, window, 0, historyLength);
+        } else {
+            historyLength = 0;
+        }
+        blockLength = 0;
+    }
+
+    /**
+     * Izraksta gatavos blokus secībā, līdz rindā paliek ne vairāk kā limit
+     */
+    private void writePending(int limit) throws IOException {
+        while (pending.size() > limit) {
+            PendingBlock block = pending.poll();
+            ByteBuffer record = OWOCompressor.await(block.result);
+            writeRecord(block.length, record);
+            freeWindows.add(block.window);
+            freeRecords.add(record.array());
+        }
+    }
+
+    /**
+     * @param record Pilns ieraksts ar galveni masīva [0, limit) (skatīt OWOCompressor.compressRecord)
+     */
+    private void writeRecord(int originalLength, ByteBuffer record) throws IOException {
+        int size = record.limit();
+        out.write(record.array(), 0, size);
+
+        indexOut.writeLong(position + 8);
+        indexOut.writeInt(size - 8);
+        indexOut.writeInt(originalLength);
+        indexOut.writeByte(record.get(8));
+        position += size;
+        blockCount++;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Plūsma jau ir pabeigta");
+        }
+    }
+
+    private static class PendingBlock {
+        final int length;
+        final byte[] window;  // Atgriežams freeWindows, kad ieraksts izrakstīts
+        final Future<ByteBuffer> result;
+
+        PendingBlock(int length, byte[] window, Future<ByteBuffer> result) {
+            this.length = length;
+            this.window = window;
+            this.result = result;
+        }
+    }
+}
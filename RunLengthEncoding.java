@@ -1,12 +1,312 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Run-Length Encoding (RLE)
  * Kompresē secības ar vienādiem simboliem
+ * Primitīvās versijas raksta izsaucēja masīvos; vajadzīgo izmēru iepriekš dod encodedLength/decodedLength
  */
 public class RunLengthEncoding {
     
+    // Nuļļu virknes garums bijektīvā divnieku sistēmā (kā bzip2): RUN_A = 1, RUN_B = 2, vērtība * 2^pozīcija
+    public static final int RUN_A = 0;
+    public static final int RUN_B = 1;
+    
+    /**
+     * Kodē MTF rangus: katra nuļļu virkne kļūst par RUN_A/RUN_B cipariem (vismazāk nozīmīgais pirmais),
+     * rangs r > 0 kļūst par simbolu r + 1. Virkņu garums nav ierobežots
+     * @param ranks Rangi (0-255)
+     * @param start Pirmā ranga indekss
+     * @param end Pozīcija aiz pēdējā ranga
+     * @param output Simbolu masīvs ar vismaz end - start elementiem
+     * @return Izvadīto simbolu skaits
+     */
+    public static int encodeZeroRuns(byte[] ranks, int start, int end, int[] output) {
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            int rank = ranks[i] & 0xFF;
+            if (rank != 0) {
+                output[count++] = rank + 1;
+                i++;
+                continue;
+            }
+            int runEnd = i + 1;
+            while (runEnd < end && ranks[runEnd] == 0) {
+                runEnd++;
+            }
+            count = writeZeroRun(runEnd - i, output, count);
+            i = runEnd;
+        }
+        return count;
+    }
+    
+    /**
+     * Ieraksta nuļļu virknes garumu kā RUN_A/RUN_B ciparus
+     * @return Nākamā brīvā pozīcija output
+     */
+    private static int writeZeroRun(int run, int[] output, int count) {
+        while (run > 0) {
+            if ((run & 1) != 0) {
+                output[count++] = RUN_A;
+                run = (run - 1) >>> 1;
+            } else {
+                output[count++] = RUN_B;
+                run = (run - 2) >>> 1;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Atgriež encodeZeroRuns: RUN_A/RUN_B ciparus izvērš nullēs, simbolu s > 1 - rangā s - 1
+     * @param symbols Simboli
+     * @param start Pirmā simbola indekss
+     * @param end Pozīcija aiz pēdējā simbola
+     * @param output Rangu masīvs; vajadzīgo garumu dod zeroRunsDecodedLength
+     * @param outputPos Pirmā ranga indekss
+     * @return Pozīcija aiz pēdējā ierakstītā ranga
+     */
+    public static int decodeZeroRuns(int[] symbols, int start, int end, byte[] output, int outputPos) {
+        int run = 0;
+        int weight = 1;
+        for (int i = start; i < end; i++) {
+            int symbol = symbols[i];
+            if (symbol <= RUN_B) {
+                run += (symbol + 1) * weight;
+                weight <<= 1;
+                continue;
+            }
+            if (run > 0) {
+                Arrays.fill(output, outputPos, outputPos + run, (byte) 0);
+                outputPos += run;
+                run = 0;
+                weight = 1;
+            }
+            output[outputPos++] = (byte) (symbol - 1);
+        }
+        Arrays.fill(output, outputPos, outputPos + run, (byte) 0);
+        return outputPos + run;
+    }
+    
+    /**
+     * @return Rangu skaits, ko atjaunos decodeZeroRuns
+     * @throws IllegalArgumentException Ja rezultāts neietilpst masīvā
+     */
+    public static int zeroRunsDecodedLength(int[] symbols, int start, int end) {
+        long length = 0;
+        long weight = 1;
+        for (int i = start; i < end; i++) {
+            int symbol = symbols[i];
+            if (symbol <= RUN_B) {
+                length += (symbol + 1) * weight;
+                weight <<= 1;
+            } else {
+                length++;
+                weight = 1;
+            }
+            if (length > Integer.MAX_VALUE || weight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Nuļļu virkne pārāk gara");
+            }
+        }
+        return (int) length;
+    }
+    
+    /**
+     * Kodē baitus kā [vērtība][garums varint] pārus (7 biti baitā, zemākie pirmie); garums nav ierobežots
+     * @param data Ievades baiti
+     * @param start Pirmā baita indekss
+     * @param end Pozīcija aiz pēdējā baita
+     * @param output Izvades masīvs; vajadzīgo garumu dod encodedLength
+     * @param outputPos Pirmā izvades baita indekss
+     * @return Pozīcija aiz pēdējā ierakstītā baita
+     */
+    public static int encode(byte[] data, int start, int end, byte[] output, int outputPos) {
+        int i = start;
+        while (i < end) {
+            byte value = data[i];
+            int runEnd = i + 1;
+            while (runEnd < end && data[runEnd] == value) {
+                runEnd++;
+            }
+            output[outputPos++] = value;
+            int run = runEnd - i;
+            while (run >= 0x80) {
+                output[outputPos++] = (byte) (run | 0x80);
+                run >>>= 7;
+            }
+            output[outputPos++] = (byte) run;
+            i = runEnd;
+        }
+        return outputPos;
+    }
+    
+    /**
+     * @return Baitu skaits, ko ierakstīs encode(byte[], int, int, byte[], int)
+     */
+    public static int encodedLength(byte[] data, int start, int end) {
+        long length = 0;
+        int i = start;
+        while (i < end) {
+            byte value = data[i];
+            int runEnd = i + 1;
+            while (runEnd < end && data[runEnd] == value) {
+                runEnd++;
+            }
+            length += 1 + varintLength(runEnd - i);
+            i = runEnd;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Kodētie dati neietilpst masīvā: " + length);
+        }
+        return (int) length;
+    }
+    
+    /**
+     * Atgriež encode(byte[], ...) tieši izsaucēja masīvā
+     * @param encoded Kodētie pāri
+     * @param start Pirmā kodētā baita indekss
+     * @param end Pozīcija aiz pēdējā kodētā baita
+     * @param output Izvades masīvs; vajadzīgo garumu dod decodedLength
+     * @param outputPos Pirmā izvades baita indekss
+     * @return Pozīcija aiz pēdējā ierakstītā baita
+     * @throws IllegalArgumentException Ja pāris ir nepilns vai garums nederīgs
+     */
+    public static int decode(byte[] encoded, int start, int end, byte[] output, int outputPos) {
+        int i = start;
+        while (i < end) {
+            byte value = encoded[i++];
+            int run = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (i == end || shift > 28) {
+                    throw new IllegalArgumentException("Nederīgs virknes garums pozīcijā " + i);
+                }
+                int b = encoded[i++];
+                run |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (run <= 0) {
+                throw new IllegalArgumentException("Nederīgs virknes garums: " + run);
+            }
+            Arrays.fill(output, outputPos, outputPos + run, value);
+            outputPos += run;
+        }
+        return outputPos;
+    }
+    
+    /**
+     * @return Baitu skaits, ko atjaunos decode(byte[], ...)
+     * @throws IllegalArgumentException Ja dati ir bojāti vai rezultāts neietilpst masīvā
+     */
+    public static int decodedLength(byte[] encoded, int start, int end) {
+        long length = 0;
+        int i = start;
+        while (i < end) {
+            i++;
+            int run = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (i == end || shift > 28) {
+                    throw new IllegalArgumentException("Nederīgs virknes garums pozīcijā " + i);
+                }
+                int b = encoded[i++];
+                run |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if (run <= 0) {
+                throw new IllegalArgumentException("Nederīgs virknes garums: " + run);
+            }
+            length += run;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dekodētie dati neietilpst masīvā: " + length);
+        }
+        return (int) length;
+    }
+    
+    /**
+     * Kodē int masīvu kā (vērtība, garums) pārus blakus esošos elementos; garums nav ierobežots
+     * @param data Ievades dati
+     * @param start Pirmā elementa indekss
+     * @param end Pozīcija aiz pēdējā elementa
+     * @param output Izvades masīvs; vajadzīgo garumu dod encodedLength
+     * @param outputPos Pirmā izvades elementa indekss
+     * @return Pozīcija aiz pēdējā ierakstītā elementa
+     */
+    public static int encode(int[] data, int start, int end, int[] output, int outputPos) {
+        int i = start;
+        while (i < end) {
+            int value = data[i];
+            int runEnd = i + 1;
+            while (runEnd < end && data[runEnd] == value) {
+                runEnd++;
+            }
+            output[outputPos++] = value;
+            output[outputPos++] = runEnd - i;
+            i = runEnd;
+        }
+        return outputPos;
+    }
+    
+    /**
+     * @return Elementu skaits, ko ierakstīs encode(int[], int, int, int[], int)
+     */
+    public static int encodedLength(int[] data, int start, int end) {
+        long length = 0;
+        for (int i = start; i < end; i++) {
+            if (i == start || data[i] != data[i - 1]) {
+                length += 2;
+            }
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Kodētie dati neietilpst masīvā: " + length);
+        }
+        return (int) length;
+    }
+    
+    /**
+     * Atgriež encode(int[], ...) tieši izsaucēja masīvā
+     * @param pairs Pāri (vērtība, garums)
+     * @param start Pirmā pāra indekss
+     * @param end Pozīcija aiz pēdējā pāra
+     * @param output Izvades masīvs; vajadzīgo garumu dod decodedLength
+     * @param outputPos Pirmā izvades elementa indekss
+     * @return Pozīcija aiz pēdējā ierakstītā elementa
+     */
+    public static int decode(int[] pairs, int start, int end, int[] output, int outputPos) {
+        for (int i = start; i + 1 < end; i += 2) {
+            int run = pairs[i + 1];
+            Arrays.fill(output, outputPos, outputPos + run, pairs[i]);
+            outputPos += run;
+        }
+        return outputPos;
+    }
+    
+    /**
+     * @return Elementu skaits, ko atjaunos decode(int[], ...)
+     * @throws IllegalArgumentException Ja garums ir negatīvs vai rezultāts neietilpst masīvā
+     */
+    public static int decodedLength(int[] pairs, int start, int end) {
+        if (((end - start) & 1) != 0) {
+            throw new IllegalArgumentException("Nepilns RLE pāris");
+        }
+        long length = 0;
+        for (int i = start + 1; i < end; i += 2) {
+            if (pairs[i] < 0) {
+                throw new IllegalArgumentException("Nederīgs virknes garums: " + pairs[i]);
+            }
+            length += pairs[i];
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dekodētie dati neietilpst masīvā: " + length);
+        }
+        return (int) length;
+    }
+    
     /**
      * Piemēro RLE kodēšanu
      * @param data Ievades dati
@@ -18,20 +318,15 @@ public class RunLengthEncoding {
         }
         
         List<RLEPair> result = new ArrayList<>();
-        int currentValue = data[0];
-        int count = 1;
-        
-        for (int i = 1; i < data.length; i++) {
-            if (data[i] == currentValue && count < 255) {
-                count++;
-            } else {
-                result.add(new RLEPair(currentValue, count));
-                currentValue = data[i];
-                count = 1;
+        int i = 0;
+        while (i < data.length) {
+            int runEnd = i + 1;
+            while (runEnd < data.length && data[runEnd] == data[i]) {
+                runEnd++;
             }
+            result.add(new RLEPair(data[i], runEnd - i));
+            i = runEnd;
         }
-        
-        result.add(new RLEPair(currentValue, count));
         return result;
     }
     
@@ -45,15 +340,31 @@ public class RunLengthEncoding {
             return new int[0];
         }
         
-        List<Integer> result = new ArrayList<>();
-        
+        long length = 0;
+        for (RLEPair pair : encoded) {
+            length += Math.max(0, pair.length);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dekodētie dati neietilpst masīvā: " + length);
+        }
+        int[] result = new int[(int) length];
+        int pos = 0;
         for (RLEPair pair : encoded) {
-            for (int i = 0; i < pair.length; i++) {
-                result.add(pair.value);
+            if (pair.length > 0) {
+                Arrays.fill(result, pos, pos + pair.length, pair.value);
+                pos += pair.length;
             }
         }
-        
-        return result.stream().mapToInt(i -> i).toArray();
+        return result;
+    }
+    
+    private static int varintLength(int value) {
+        int length = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
     }
     
     /**
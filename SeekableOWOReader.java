@@ -0,0 +1,318 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Brīvpiekļuves lasītājs OWO3 failiem
+ * Izmanto bloku indeksu faila beigās (vai, ja tā nav, nolasa bloku galvenes) un dekodē
+ * tikai tos blokus, kuros ir pieprasītais diapazons
+ * Blokiem ar vēsturi (setPrimedWindow) atmiņā tiek turēti tikai pēdējie WINDOW_SIZE baiti un
+ * pašreizējais bloks, kā arī vēstures kopijas ik pēc CHECKPOINT_INTERVAL dekompresētiem baitiem
+ */
+public class SeekableOWOReader implements Closeable {
+
+    private static final int HISTORY_SIZE = LZ77Compression.WINDOW_SIZE;
+    private static final int CHECKPOINT_INTERVAL = 4 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    // Indekss: katram blokam datu pozīcija failā, garumi, marker un sākums dekompresētajos datos
+    private long[] dataOffsets;
+    private int[] compressedLengths;
+    private int[] originalLengths;
+    private byte[] markers;
+    private long[] blockStarts;
+    private byte[][] checkpoints;  // Vēsture pirms bloka; tikai blokiem ar vēsturi, kas sāk jaunu intervālu
+    private int blockCount;
+    private long length;
+
+    // Pēdējais dekodētais bloks [cacheStart, cacheEnd): cache = [līdz HISTORY_SIZE vēstures baiti][bloks]
+    private byte[] cache = new byte[0];
+    private int cacheOffset;
+    private int cachedBlock = -1;
+    private long cacheStart;
+    private long cacheEnd;
+    private byte[] compressed = new byte[0];
+    private final HuffmanCoding.DecodingTables tables = new HuffmanCoding.DecodingTables();
+
+    /**
+     * @param path OWO3 faila ceļš
+     * @throws IOException Ja fails nav OWO3 formātā
+     */
+    public SeekableOWOReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = readFully(0, 4);
+            if (!new String(header.array(), "UTF-8").equals(OWOOutputStream.MAGIC_HEADER)) {
+                throw new IOException("Nederīgs OWO faila formāts");
+            }
+            if (!readIndex()) {
+                scanBlocks();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Dekompresēto datu garums
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return Bloku skaits failā
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Bloka kodēšanas stratēģija, piemēram, lai uzskaitītu OWOCompressor.Strategy.AUTO izvēles
+     * @param block Bloka numurs (0 - blockCount() - 1)
+     * @return LZ77, MTF_RLE vai BWT; null nekompresētam blokam vai posmu ķēdei
+     * @throws IOException Ja bloka marķieris nav zināms
+     */
+    public OWOCompressor.Strategy blockStrategy(int block) throws IOException {
+        if (block < 0 || block >= blockCount) {
+            throw new IndexOutOfBoundsException("Bloks " + block + " no " + blockCount);
+        }
+        return OWOCompressor.strategyForMarker(markers[block]);
+    }
+
+    /**
+     * Nolasa dekompresētos baitus no norādītās pozīcijas
+     * @param position Pozīcija dekompresētajos datos
+     * @param dst Mērķa masīvs
+     * @param off Pirmā rakstāmā baita indekss
+     * @param len Maksimālais baitu skaits
+     * @return Nolasīto baitu skaits vai -1, ja position ir aiz datu beigām
+     * @throws IOException Ja rodas I/O kļūda vai bloks ir bojāts
+     */
+    public synchronized int read(long position, byte[] dst, int off, int len) throws IOException {
+        if (position < 0 || off < 0 || len < 0 || off + len > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        int total = 0;
+        while (total < len && position < length) {
+            if (position < cacheStart || position >= cacheEnd) {
+                decodeBlockAt(position);
+            }
+            int count = (int) Math.min(len - total, cacheEnd - position);
+            System.arraycopy(cache, cacheOffset + (int) (position - cacheStart), dst, off + total, count);
+            total += count;
+            position += count;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Dekodē bloku, kurā atrodas position; blokiem ar vēsturi - uz priekšu no tuvākā no: bloka, kas
+     * neatsaucas uz iepriekšējiem datiem, vēstures kopijas vai iepriekš dekodētā bloka
+     */
+    private void decodeBlockAt(long position) throws IOException {
+        int target = findBlock(position);
+        int first = firstIndependentBlock(target);
+
+        int next = first;
+        for (int i = target; i > first; i--) {
+            if (checkpoints[i] != null) {
+                next = i;
+                break;
+            }
+        }
+        int historyLength = 0;
+        if (cachedBlock >= first && cachedBlock < target && cachedBlock + 1 >= next) {
+            // Secīga lasīšana - vēsture ir iepriekšējā bloka beigas
+            historyLength = keepHistory(cacheOffset + originalLengths[cachedBlock]);
+            next = cachedBlock + 1;
+        } else if (next > first) {
+            historyLength = checkpoints[next].length;
+            ensureCache(historyLength);
+            System.arraycopy(checkpoints[next], 0, cache, 0, historyLength);
+        }
+        cachedBlock = -1;
+        cacheEnd = cacheStart;
+
+        for (int i = next; i <= target; i++) {
+            if (i > next) {
+                historyLength = keepHistory(historyLength + originalLengths[i - 1]);
+            }
+            if (i > first && checkpoints[i] == null && markers[i] == OWOCompressor.MARKER_LZ77_PRIMED
+                    && blockStarts[i] / CHECKPOINT_INTERVAL != blockStarts[i - 1] / CHECKPOINT_INTERVAL) {
+                checkpoints[i] = Arrays.copyOf(cache, historyLength);
+            }
+            if (compressed.length < compressedLengths[i]) {
+                compressed = new byte[compressedLengths[i]];
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, compressedLengths[i]);
+            readFully(dataOffsets[i], buffer);
+
+            ensureCache(historyLength + originalLengths[i]);
+            OWOCompressor.decompressBlock(compressed, 0, compressedLengths[i], cache, historyLength,
+                                          0, originalLengths[i], tables);
+        }
+        cachedBlock = target;
+        cacheOffset = historyLength;
+        cacheStart = blockStarts[target];
+        cacheEnd = cacheStart + originalLengths[target];
+    }
+
+    /**
+     * Pārvieto cache[0, end) pēdējos HISTORY_SIZE baitus uz sākumu
+     * @return Vēstures garums
+     */
+    private int keepHistory(int end) {
+        int historyLength = Math.min(HISTORY_SIZE, end);
+        System.arraycopy(cache, end - historyLength, cache, 0, historyLength);
+        return historyLength;
+    }
+
+    private void ensureCache(int capacity) {
+        if (cache.length < capacity) {
+            cache = Arrays.copyOf(cache, capacity);
+        }
+    }
+
+    /**
+     * Atrod bloku, no kura sākot var dekodēt bloku last bez iepriekšējiem datiem
+     */
+    private int firstIndependentBlock(int last) {
+        int first = last;
+        int firstPrimed = markers[last] == OWOCompressor.MARKER_LZ77_PRIMED ? last : -1;
+        while (first > 0) {
+            if (markers[first] != OWOCompressor.MARKER_LZ77_PRIMED) {
+                // Pirmais bloks ar vēsturi sniedzas ne tālāk kā WINDOW_SIZE atpakaļ
+                if (firstPrimed < 0 || blockStarts[firstPrimed] - blockStarts[first] >= LZ77Compression.WINDOW_SIZE) {
+                    break;
+                }
+            } else {
+                firstPrimed = first;
+            }
+            first--;
+        }
+        return first;
+    }
+
+    private int findBlock(long position) {
+        int index = Arrays.binarySearch(blockStarts, 0, blockCount, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Nolasa indeksu no faila beigām
+     * @return false, ja faila beigās indeksa nav
+     */
+    private boolean readIndex() throws IOException {
+        long size = channel.size();
+        if (size < 16) {
+            return false;
+        }
+        ByteBuffer trailer = readFully(size - 8, 8);
+        int indexLength = trailer.getInt();
+        byte[] magic = new byte[4];
+        trailer.get(magic);
+        if (!new String(magic, "UTF-8").equals(OWOOutputStream.INDEX_MAGIC)) {
+            return false;
+        }
+        if (indexLength < 4 || indexLength > size - 12) {
+            throw new IOException("Nederīgs bloku indekss: " + indexLength);
+        }
+
+        ByteBuffer index = readFully(size - 8 - indexLength, indexLength);
+        int count = index.getInt();
+        if (count < 0 || (long) count * 17 != indexLength - 4) {
+            throw new IOException("Nederīgs bloku skaits indeksā: " + count);
+        }
+        allocate(count);
+        for (int i = 0; i < count; i++) {
+            addBlock(index.getLong(), index.getInt(), index.getInt(), index.get());
+        }
+        return true;
+    }
+
+    /**
+     * Veido indeksu, nolasot bloku galvenes (failiem bez indeksa)
+     */
+    private void scanBlocks() throws IOException {
+        allocate(16);
+        long offset = 4;
+        while (true) {
+            int originalLength = readFully(offset, 4).getInt();
+            if (originalLength == 0) {
+                break;
+            }
+            ByteBuffer header = readFully(offset + 4, 5);
+            int compressedLength = header.getInt();
+            if (originalLength < 0 || compressedLength < 1) {
+                throw new IOException("Nederīga bloka galvene: " + originalLength + "/" + compressedLength);
+            }
+            addBlock(offset + 8, compressedLength, originalLength, header.get());
+            offset += 8 + compressedLength;
+        }
+    }
+
+    private void allocate(int capacity) {
+        capacity = Math.max(1, capacity);
+        dataOffsets = new long[capacity];
+        compressedLengths = new int[capacity];
+        originalLengths = new int[capacity];
+        markers = new byte[capacity];
+        blockStarts = new long[capacity];
+        checkpoints = new byte[capacity][];
+    }
+
+    private void addBlock(long dataOffset, int compressedLength, int originalLength, byte marker)
+            throws IOException {
+        if (originalLength < 1 || originalLength > OWOOutputStream.MAX_BLOCK_SIZE || compressedLength < 1) {
+            throw new IOException("Nederīgs bloka ieraksts: " + originalLength + "/" + compressedLength);
+        }
+        if (blockCount == blockStarts.length) {
+            int capacity = blockCount * 2;
+            dataOffsets = Arrays.copyOf(dataOffsets, capacity);
+            compressedLengths = Arrays.copyOf(compressedLengths, capacity);
+            originalLengths = Arrays.copyOf(originalLengths, capacity);
+            markers = Arrays.copyOf(markers, capacity);
+            blockStarts = Arrays.copyOf(blockStarts, capacity);
+            checkpoints = Arrays.copyOf(checkpoints, capacity);
+        }
+        dataOffsets[blockCount] = dataOffset;
+        compressedLengths[blockCount] = compressedLength;
+        originalLengths[blockCount] = originalLength;
+        markers[blockCount] = marker;
+        blockStarts[blockCount] = length;
+        blockCount++;
+        length += originalLength;
+    }
+
+    private ByteBuffer readFully(long position, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        readFully(position, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void readFully(long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException("Negaidītas faila beigas");
+            }
+            position += count;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Iepriekš zināmas LZ77HuffmanCoder kodu tabulas: blokā glabājas tikai tabulas ID, nevis kodu garumi,
+ * tāpēc maziem blokiem nav jāmaksā par dinamisko tabulu galveni
+ * Kodi un dekodēšanas tabulas tiek izveidoti vienreiz, tāpēc dekodētājs bloka sākumā neko nebūvē
+ *
+ * ID 1-127 ir rezervēti iebūvētajām tabulām; kodētājs pats izvēlas lētāko (LZ77HuffmanCoder.cheapestTable)
+ */
+public final class StaticHuffmanTable {
+
+    // Kodu garumi heksadecimāli, viens cipars simbolam; 0 - simbols netiek kodēts (256 ir rezervēts).
+    // Apmācīts uz 200 B - 4 KB HTML lapu fragmentu tokenu statistikas; neredzētie simboli saņem 15 bitu kodus
+    private static final String HTML_LITLEN_LENGTHS =
+        "fffffffffb9fffffffffffffffffffff5b7af9bf99fb9777777888888889997bf888889aa9a9999a8b989a9bffaaabf7f577"
+        + "6587768767667b666678988bcbffa8bbccabbfcbbbfcecf9cbcbccccbfcfa9cbbbbbabb8bbbbaabbaabaacbbababffca78ff"
+        + "ffffffbf99fffafbaafcffff8bbffcffffeccfffffffffffffffffff03455666666776777678999bbbaaff";
+    private static final String HTML_DISTANCE_LENGTHS = "abc97856554545444545444444eeee";
+
+    /** HTML/CSS/JS fragmentiem */
+    public static final StaticHuffmanTable HTML = new StaticHuffmanTable(1, HTML_LITLEN_LENGTHS, HTML_DISTANCE_LENGTHS);
+
+    /** Tabulas, starp kurām kodētājs izvēlas */
+    static final StaticHuffmanTable[] BUILT_IN = {HTML};
+
+    private final int id;
+    final byte[] litlenLengths;
+    final int[] litlenCodes;
+    final HuffmanCoding.DecodingTable litlenTable;
+    final byte[] distanceLengths;
+    final int[] distanceCodes;
+    final HuffmanCoding.DecodingTable distanceTable;
+
+    private StaticHuffmanTable(int id, String litlenLengths, String distanceLengths) {
+        this.id = id;
+        this.litlenLengths = parseLengths(litlenLengths);
+        this.litlenCodes = HuffmanCoding.canonicalCodes(this.litlenLengths);
+        this.litlenTable = new HuffmanCoding.DecodingTable(litlenCodes, this.litlenLengths);
+        this.distanceLengths = parseLengths(distanceLengths);
+        this.distanceCodes = HuffmanCoding.canonicalCodes(this.distanceLengths);
+        this.distanceTable = new HuffmanCoding.DecodingTable(distanceCodes, this.distanceLengths);
+    }
+
+    private static byte[] parseLengths(String hex) {
+        byte[] lengths = new byte[hex.length()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = (byte) Character.digit(hex.charAt(i), 16);
+        }
+        return lengths;
+    }
+
+    /**
+     * @return Iebūvētā tabula vai null
+     */
+    public static StaticHuffmanTable forId(int id) {
+        for (StaticHuffmanTable table : BUILT_IN) {
+            if (table.id == id) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Tabulas ID bloka galvenē
+     */
+    public int id() {
+        return id;
+    }
+}